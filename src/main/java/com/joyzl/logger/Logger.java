@@ -4,9 +4,13 @@
  */
 package com.joyzl.logger;
 
+import java.io.FileDescriptor;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.concurrent.locks.LockSupport;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * 日志
@@ -30,6 +34,7 @@ public final class Logger {
 	/** 设置日志级别 ERROR=1,INFO=2,DEBUG=3 */
 	public static synchronized void setLevel(int value) {
 		LEVEL = value;
+		LoggerCategory.changed();
 	}
 
 	/** 日志级别 */
@@ -87,6 +92,46 @@ public final class Logger {
 		return CONSOLE;
 	}
 
+	/** 控制台异步输出 */
+	static volatile boolean CONSOLE_ASYNCHRONOUS = false;
+
+	/**
+	 * 设置控制台异步输出，启用后控制台日志由后台线程成批写入标准输出和标准错误，
+	 * 不再经由 System.out / System.err；暂存区已满时丢弃日志
+	 */
+	public static synchronized void setConsoleAsynchronous(boolean value) throws IOException {
+		CONSOLE_ASYNCHRONOUS = value;
+		if (value) {
+			if (console == null) {
+				console = new LoggerConsole(FileDescriptor.out, "LOGGER CONSOLE", 64 * 1024);
+				console.start();
+				consoleError = new LoggerConsole(FileDescriptor.err, "LOGGER CONSOLE ERROR", 64 * 1024);
+				consoleError.start();
+			}
+		} else {
+			if (console != null) {
+				final LoggerConsole out = console, err = consoleError;
+				console = consoleError = null;
+				out.close();
+				err.close();
+			}
+		}
+	}
+
+	/** 控制台异步输出 */
+	public static boolean isConsoleAsynchronous() {
+		return CONSOLE_ASYNCHRONOUS;
+	}
+
+	/** 控制台异步输出时因暂存区已满而丢弃的日志数量 */
+	public static long getConsoleDrops() {
+		final LoggerConsole out = console, err = consoleError;
+		if (out != null && err != null) {
+			return out.getDrops() + err.getDrops();
+		}
+		return 0;
+	}
+
 	/** 日志目录 */
 	static volatile String FILE_FOLDER = "log";
 	/** 日志文件名 */
@@ -99,19 +144,70 @@ public final class Logger {
 		FILE_FOLDER = folder;
 		FILE_NAME = name;
 		FILE_EXTENSION = ext;
-		if (file != null) {
-			file.close();
-			file = null;
-		}
-		if (FILE_FOLDER != null) {
-			if (FILE_NAME == null || FILE_NAME.length() == 0) {
-				file = new LoggerFile(FILE_FOLDER, "", "", FILE_EXTENSION);
-			} else {
-				file = new LoggerFile(FILE_FOLDER, FILE_NAME, "-", FILE_EXTENSION);
+		lock.lock();
+		try {
+			if (file != null) {
+				file.close();
+				file = null;
+			}
+			if (FILE_FOLDER != null) {
+				if (FILE_NAME == null || FILE_NAME.length() == 0) {
+					file = new LoggerFile(FILE_FOLDER, "", "", FILE_EXTENSION);
+				} else {
+					file = new LoggerFile(FILE_FOLDER, FILE_NAME, "-", FILE_EXTENSION);
+				}
+				file.setMapped(FILE_MAPPED);
 			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/** 日志文件内存映射窗口(字节)，0 不使用内存映射 */
+	static volatile int FILE_MAPPED = 0;
+
+	/**
+	 * 设置日志文件内存映射追加模式，之后打开的文件生效
+	 *
+	 * @param window 映射窗口(字节)，如 {@link RotatableLogger#WINDOW}，0 使用普通的追加写入
+	 */
+	public static synchronized void setFileMapped(int window) {
+		FILE_MAPPED = Math.max(0, window);
+		final LoggerFile f = file;
+		if (f != null) {
+			f.setMapped(FILE_MAPPED);
 		}
 	}
 
+	/** 日志文件内存映射窗口(字节) */
+	public static int getFileMapped() {
+		return FILE_MAPPED;
+	}
+
+	/**
+	 * 设置日志黑匣子，调用线程将每条日志复制到内存映射的环形文件，进程异常终止后仍可读取最后的日志；
+	 * 文件为 null 时关闭黑匣子
+	 *
+	 * @param capacity 容量(字节)，如 {@link LoggerBlackBox#CAPACITY}
+	 */
+	public static synchronized void setBlackBox(String file, int capacity) throws IOException {
+		if (blackbox != null) {
+			final LoggerBlackBox b = blackbox;
+			blackbox = null;
+			LoggerService.remove(b);
+			b.close();
+		}
+		if (file != null) {
+			blackbox = new LoggerBlackBox(file, capacity);
+			LoggerService.register(blackbox);
+		}
+	}
+
+	/** 日志黑匣子，未设置时返回 null */
+	public static LoggerBlackBox getBlackBox() {
+		return blackbox;
+	}
+
 	/** 日志目录 */
 	public static String getFileFolder() {
 		return FILE_FOLDER;
@@ -132,16 +228,40 @@ public final class Logger {
 	/** UDP端口 */
 	static volatile int DUP_PORT = 0;
 
+	/** UDP合并发送的数据报负载大小，0 不合并 */
+	static volatile int DUP_PAYLOAD = 0;
+	/** UDP合并发送的最长等待(毫秒) */
+	static volatile int DUP_LINGER = 0;
+	/** UDP分帧 */
+	static volatile boolean DUP_FRAME = false;
+
 	/** 设置日志输出的网络目标(UDP) */
 	public static synchronized void setUDP(String host, int port) throws IOException {
+		setUDP(host, port, DUP_PAYLOAD, DUP_LINGER);
+	}
+
+	/**
+	 * 设置日志输出的网络目标(UDP)，并合并多条日志为单个数据报发送
+	 *
+	 * @param payload 数据报负载大小，例如 1400 或 8972，0 不合并
+	 * @param linger 合并发送的最长等待(毫秒)，0 不等待，仅在负载写满或关闭时发送
+	 */
+	public static synchronized void setUDP(String host, int port, int payload, int linger) throws IOException {
 		DUP_HOST = host;
 		DUP_PORT = port;
-		if (udp != null) {
-			udp.close();
-			udp = null;
-		}
-		if (host != null && port > 0) {
-			udp = new LoggerUDP(DUP_HOST, DUP_PORT);
+		DUP_PAYLOAD = payload;
+		DUP_LINGER = linger;
+		lock.lock();
+		try {
+			if (udp != null) {
+				udp.close();
+				udp = null;
+			}
+			if (host != null && port > 0) {
+				udp = new LoggerUDP(DUP_HOST, DUP_PORT, DUP_PAYLOAD, DUP_LINGER, DUP_FRAME);
+			}
+		} finally {
+			lock.unlock();
 		}
 	}
 
@@ -155,8 +275,101 @@ public final class Logger {
 		return DUP_PORT;
 	}
 
+	/** 网络合并发送的数据报负载大小，0 不合并 */
+	public static int getDUPPayload() {
+		return DUP_PAYLOAD;
+	}
+
+	/** 网络合并发送的最长等待(毫秒) */
+	public static int getDUPLinger() {
+		return DUP_LINGER;
+	}
+
+	/**
+	 * 设置网络输出分帧，数据报附带发送方标识、序号和分段信息，
+	 * 接收端(LoggerReceiver)可重组超长日志并统计丢失的数据报
+	 */
+	public static synchronized void setUDPFrame(boolean value) throws IOException {
+		DUP_FRAME = value;
+		setUDP(DUP_HOST, DUP_PORT, DUP_PAYLOAD, DUP_LINGER);
+	}
+
+	/** 网络输出分帧 */
+	public static boolean isUDPFrame() {
+		return DUP_FRAME;
+	}
+
+	/** TCP主机 */
+	static volatile String TCP_HOST = null;
+	/** TCP端口 */
+	static volatile int TCP_PORT = 0;
+
+	/**
+	 * 设置日志输出的网络目标(TCP)，日志由独立的网络线程发送，
+	 * 连接断开期间暂存并自动重连，如果主机为null或端口为0将关闭
+	 */
+	public static synchronized void setTCP(String host, int port) throws IOException {
+		TCP_HOST = host;
+		TCP_PORT = port;
+		lock.lock();
+		try {
+			if (tcp != null) {
+				tcp.close();
+				tcp = null;
+			}
+			if (host != null && port > 0) {
+				tcp = new LoggerTCP(TCP_HOST, TCP_PORT);
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/** 网络(TCP)输出目标主机 */
+	public static String getTCPHost() {
+		return TCP_HOST;
+	}
+
+	/** 网络(TCP)输出目标端口 */
+	public static int getTCPPort() {
+		return TCP_PORT;
+	}
+
+	/** 异步输出 */
+	static volatile boolean ASYNCHRONOUS = false;
+
+	/**
+	 * 设置异步输出，启用后日志由后台线程写入文件和网络，调用线程仅将日志放入队列；
+	 * 关闭时将输出队列中剩余的日志
+	 */
+	public static synchronized void setAsynchronous(boolean value) throws IOException {
+		ASYNCHRONOUS = value;
+		if (value) {
+			if (writer == null) {
+				writer = new AsynchronousWriter();
+				writer.setDaemon(true);
+				writer.start();
+			}
+		} else {
+			if (writer != null) {
+				final AsynchronousWriter w = writer;
+				writer = null;
+				w.close();
+			}
+		}
+	}
+
+	/** 异步输出 */
+	public static boolean isAsynchronous() {
+		return ASYNCHRONOUS;
+	}
+
 	private static volatile LoggerUDP udp;
+	private static volatile LoggerTCP tcp;
 	private static volatile LoggerFile file;
+	private static volatile AsynchronousWriter writer;
+	private static volatile LoggerConsole console, consoleError;
+	private static volatile LoggerBlackBox blackbox;
 
 	// static {
 	// 20250902
@@ -175,117 +388,714 @@ public final class Logger {
 		// 不要实例
 	}
 
+	/**
+	 * 获取命名日志，名称以'.'分级，例如"com.shop.payment"；
+	 * 未设置级别的命名日志继承上级的级别，顶级继承全局级别
+	 */
+	public static LoggerCategory get(String name) {
+		return LoggerCategory.get(name);
+	}
+
 	public static void info(Object... messages) {
 		if (LEVEL > 1) {
-			final LoggerBuilder builder = LoggerBuilder.instance();
-			builder.timestamp = System.currentTimeMillis();
-			LoggerBuilder.encodeTime(builder.builder(), builder.timestamp);
-			build(builder.builder(), INFOM, messages);
-			output(builder, INFOM);
+			final LoggerBuilder builder = begin(INFOM);
+			appends(builder.builder(), messages);
+			end(builder, INFOM);
+		}
+	}
+
+	public static void info(Object message) {
+		if (LEVEL > 1) {
+			final LoggerBuilder builder = begin(INFOM);
+			append(builder.builder(), message);
+			end(builder, INFOM);
+		}
+	}
+
+	public static void info(Object message1, Object message2) {
+		if (LEVEL > 1) {
+			final LoggerBuilder builder = begin(INFOM);
+			append(builder.builder(), message1);
+			append(builder.builder(), message2);
+			end(builder, INFOM);
+		}
+	}
+
+	public static void info(Object message1, Object message2, Object message3) {
+		if (LEVEL > 1) {
+			final LoggerBuilder builder = begin(INFOM);
+			append(builder.builder(), message1);
+			append(builder.builder(), message2);
+			append(builder.builder(), message3);
+			end(builder, INFOM);
+		}
+	}
+
+	public static void info(Object message1, Object message2, Object message3, Object message4) {
+		if (LEVEL > 1) {
+			final LoggerBuilder builder = begin(INFOM);
+			append(builder.builder(), message1);
+			append(builder.builder(), message2);
+			append(builder.builder(), message3);
+			append(builder.builder(), message4);
+			end(builder, INFOM);
+		}
+	}
+
+	public static void info(long value) {
+		if (LEVEL > 1) {
+			final LoggerBuilder builder = begin(INFOM);
+			builder.builder().append(value);
+			end(builder, INFOM);
+		}
+	}
+
+	public static void info(char value) {
+		if (LEVEL > 1) {
+			final LoggerBuilder builder = begin(INFOM);
+			builder.builder().append(value);
+			end(builder, INFOM);
+		}
+	}
+
+	public static void info(double value) {
+		if (LEVEL > 1) {
+			final LoggerBuilder builder = begin(INFOM);
+			builder.builder().append(value);
+			end(builder, INFOM);
+		}
+	}
+
+	public static void info(float value) {
+		if (LEVEL > 1) {
+			final LoggerBuilder builder = begin(INFOM);
+			builder.builder().append(value);
+			end(builder, INFOM);
+		}
+	}
+
+	public static void info(boolean value) {
+		if (LEVEL > 1) {
+			final LoggerBuilder builder = begin(INFOM);
+			builder.builder().append(value);
+			end(builder, INFOM);
+		}
+	}
+
+	/** 文本和基本类型值，值不装箱 */
+	public static void info(CharSequence message, long value) {
+		if (LEVEL > 1) {
+			final LoggerBuilder builder = begin(INFOM);
+			if (message != null) {
+				builder.builder().append(message);
+			}
+			builder.builder().append(value);
+			end(builder, INFOM);
+		}
+	}
+
+	public static void info(CharSequence message, char value) {
+		if (LEVEL > 1) {
+			final LoggerBuilder builder = begin(INFOM);
+			if (message != null) {
+				builder.builder().append(message);
+			}
+			builder.builder().append(value);
+			end(builder, INFOM);
+		}
+	}
+
+	public static void info(CharSequence message, double value) {
+		if (LEVEL > 1) {
+			final LoggerBuilder builder = begin(INFOM);
+			if (message != null) {
+				builder.builder().append(message);
+			}
+			builder.builder().append(value);
+			end(builder, INFOM);
+		}
+	}
+
+	public static void info(CharSequence message, float value) {
+		if (LEVEL > 1) {
+			final LoggerBuilder builder = begin(INFOM);
+			if (message != null) {
+				builder.builder().append(message);
+			}
+			builder.builder().append(value);
+			end(builder, INFOM);
+		}
+	}
+
+	public static void info(CharSequence message, boolean value) {
+		if (LEVEL > 1) {
+			final LoggerBuilder builder = begin(INFOM);
+			if (message != null) {
+				builder.builder().append(message);
+			}
+			builder.builder().append(value);
+			end(builder, INFOM);
+		}
+	}
+
+	/** 仅当级别启用时获取消息对象 */
+	public static void infoLazy(Supplier<?> message) {
+		if (LEVEL > 1) {
+			final LoggerBuilder builder = begin(INFOM);
+			append(builder.builder(), message.get());
+			end(builder, INFOM);
+		}
+	}
+
+	/** 仅当级别启用时回调，消息直接写入日志缓存 */
+	public static void infoWith(Consumer<StringBuilder> writer) {
+		if (LEVEL > 1) {
+			final LoggerBuilder builder = begin(INFOM);
+			writer.accept(builder.builder());
+			end(builder, INFOM);
 		}
 	}
 
 	public static void debug(Object... messages) {
 		if (LEVEL > 2) {
-			final LoggerBuilder builder = LoggerBuilder.instance();
-			builder.timestamp = System.currentTimeMillis();
-			LoggerBuilder.encodeTime(builder.builder(), builder.timestamp);
-			build(builder.builder(), DEBUG, messages);
-			output(builder, DEBUG);
+			final LoggerBuilder builder = begin(DEBUG);
+			appends(builder.builder(), messages);
+			end(builder, DEBUG);
+		}
+	}
+
+	public static void debug(Object message) {
+		if (LEVEL > 2) {
+			final LoggerBuilder builder = begin(DEBUG);
+			append(builder.builder(), message);
+			end(builder, DEBUG);
+		}
+	}
+
+	public static void debug(Object message1, Object message2) {
+		if (LEVEL > 2) {
+			final LoggerBuilder builder = begin(DEBUG);
+			append(builder.builder(), message1);
+			append(builder.builder(), message2);
+			end(builder, DEBUG);
+		}
+	}
+
+	public static void debug(Object message1, Object message2, Object message3) {
+		if (LEVEL > 2) {
+			final LoggerBuilder builder = begin(DEBUG);
+			append(builder.builder(), message1);
+			append(builder.builder(), message2);
+			append(builder.builder(), message3);
+			end(builder, DEBUG);
+		}
+	}
+
+	public static void debug(Object message1, Object message2, Object message3, Object message4) {
+		if (LEVEL > 2) {
+			final LoggerBuilder builder = begin(DEBUG);
+			append(builder.builder(), message1);
+			append(builder.builder(), message2);
+			append(builder.builder(), message3);
+			append(builder.builder(), message4);
+			end(builder, DEBUG);
+		}
+	}
+
+	public static void debug(long value) {
+		if (LEVEL > 2) {
+			final LoggerBuilder builder = begin(DEBUG);
+			builder.builder().append(value);
+			end(builder, DEBUG);
+		}
+	}
+
+	public static void debug(char value) {
+		if (LEVEL > 2) {
+			final LoggerBuilder builder = begin(DEBUG);
+			builder.builder().append(value);
+			end(builder, DEBUG);
+		}
+	}
+
+	public static void debug(double value) {
+		if (LEVEL > 2) {
+			final LoggerBuilder builder = begin(DEBUG);
+			builder.builder().append(value);
+			end(builder, DEBUG);
+		}
+	}
+
+	public static void debug(float value) {
+		if (LEVEL > 2) {
+			final LoggerBuilder builder = begin(DEBUG);
+			builder.builder().append(value);
+			end(builder, DEBUG);
+		}
+	}
+
+	public static void debug(boolean value) {
+		if (LEVEL > 2) {
+			final LoggerBuilder builder = begin(DEBUG);
+			builder.builder().append(value);
+			end(builder, DEBUG);
+		}
+	}
+
+	/** 文本和基本类型值，值不装箱 */
+	public static void debug(CharSequence message, long value) {
+		if (LEVEL > 2) {
+			final LoggerBuilder builder = begin(DEBUG);
+			if (message != null) {
+				builder.builder().append(message);
+			}
+			builder.builder().append(value);
+			end(builder, DEBUG);
+		}
+	}
+
+	public static void debug(CharSequence message, char value) {
+		if (LEVEL > 2) {
+			final LoggerBuilder builder = begin(DEBUG);
+			if (message != null) {
+				builder.builder().append(message);
+			}
+			builder.builder().append(value);
+			end(builder, DEBUG);
+		}
+	}
+
+	public static void debug(CharSequence message, double value) {
+		if (LEVEL > 2) {
+			final LoggerBuilder builder = begin(DEBUG);
+			if (message != null) {
+				builder.builder().append(message);
+			}
+			builder.builder().append(value);
+			end(builder, DEBUG);
+		}
+	}
+
+	public static void debug(CharSequence message, float value) {
+		if (LEVEL > 2) {
+			final LoggerBuilder builder = begin(DEBUG);
+			if (message != null) {
+				builder.builder().append(message);
+			}
+			builder.builder().append(value);
+			end(builder, DEBUG);
+		}
+	}
+
+	public static void debug(CharSequence message, boolean value) {
+		if (LEVEL > 2) {
+			final LoggerBuilder builder = begin(DEBUG);
+			if (message != null) {
+				builder.builder().append(message);
+			}
+			builder.builder().append(value);
+			end(builder, DEBUG);
+		}
+	}
+
+	/** 仅当级别启用时获取消息对象 */
+	public static void debugLazy(Supplier<?> message) {
+		if (LEVEL > 2) {
+			final LoggerBuilder builder = begin(DEBUG);
+			append(builder.builder(), message.get());
+			end(builder, DEBUG);
+		}
+	}
+
+	/** 仅当级别启用时回调，消息直接写入日志缓存 */
+	public static void debugWith(Consumer<StringBuilder> writer) {
+		if (LEVEL > 2) {
+			final LoggerBuilder builder = begin(DEBUG);
+			writer.accept(builder.builder());
+			end(builder, DEBUG);
 		}
 	}
 
 	public static void error(Object... messages) {
 		if (LEVEL > 0) {
-			final LoggerBuilder builder = LoggerBuilder.instance();
-			builder.timestamp = System.currentTimeMillis();
-			LoggerBuilder.encodeTime(builder.builder(), builder.timestamp);
-			build(builder.builder(), ERROR, messages);
-			output(builder, ERROR);
+			final LoggerBuilder builder = begin(ERROR);
+			appends(builder.builder(), messages);
+			end(builder, ERROR);
+		}
+	}
+
+	public static void error(Object message) {
+		if (LEVEL > 0) {
+			final LoggerBuilder builder = begin(ERROR);
+			append(builder.builder(), message);
+			end(builder, ERROR);
+		}
+	}
+
+	public static void error(Object message1, Object message2) {
+		if (LEVEL > 0) {
+			final LoggerBuilder builder = begin(ERROR);
+			append(builder.builder(), message1);
+			append(builder.builder(), message2);
+			end(builder, ERROR);
+		}
+	}
+
+	public static void error(Object message1, Object message2, Object message3) {
+		if (LEVEL > 0) {
+			final LoggerBuilder builder = begin(ERROR);
+			append(builder.builder(), message1);
+			append(builder.builder(), message2);
+			append(builder.builder(), message3);
+			end(builder, ERROR);
+		}
+	}
+
+	public static void error(Object message1, Object message2, Object message3, Object message4) {
+		if (LEVEL > 0) {
+			final LoggerBuilder builder = begin(ERROR);
+			append(builder.builder(), message1);
+			append(builder.builder(), message2);
+			append(builder.builder(), message3);
+			append(builder.builder(), message4);
+			end(builder, ERROR);
+		}
+	}
+
+	public static void error(long value) {
+		if (LEVEL > 0) {
+			final LoggerBuilder builder = begin(ERROR);
+			builder.builder().append(value);
+			end(builder, ERROR);
+		}
+	}
+
+	public static void error(char value) {
+		if (LEVEL > 0) {
+			final LoggerBuilder builder = begin(ERROR);
+			builder.builder().append(value);
+			end(builder, ERROR);
+		}
+	}
+
+	public static void error(double value) {
+		if (LEVEL > 0) {
+			final LoggerBuilder builder = begin(ERROR);
+			builder.builder().append(value);
+			end(builder, ERROR);
+		}
+	}
+
+	public static void error(float value) {
+		if (LEVEL > 0) {
+			final LoggerBuilder builder = begin(ERROR);
+			builder.builder().append(value);
+			end(builder, ERROR);
+		}
+	}
+
+	public static void error(boolean value) {
+		if (LEVEL > 0) {
+			final LoggerBuilder builder = begin(ERROR);
+			builder.builder().append(value);
+			end(builder, ERROR);
+		}
+	}
+
+	/** 文本和基本类型值，值不装箱 */
+	public static void error(CharSequence message, long value) {
+		if (LEVEL > 0) {
+			final LoggerBuilder builder = begin(ERROR);
+			if (message != null) {
+				builder.builder().append(message);
+			}
+			builder.builder().append(value);
+			end(builder, ERROR);
+		}
+	}
+
+	public static void error(CharSequence message, char value) {
+		if (LEVEL > 0) {
+			final LoggerBuilder builder = begin(ERROR);
+			if (message != null) {
+				builder.builder().append(message);
+			}
+			builder.builder().append(value);
+			end(builder, ERROR);
+		}
+	}
+
+	public static void error(CharSequence message, double value) {
+		if (LEVEL > 0) {
+			final LoggerBuilder builder = begin(ERROR);
+			if (message != null) {
+				builder.builder().append(message);
+			}
+			builder.builder().append(value);
+			end(builder, ERROR);
+		}
+	}
+
+	public static void error(CharSequence message, float value) {
+		if (LEVEL > 0) {
+			final LoggerBuilder builder = begin(ERROR);
+			if (message != null) {
+				builder.builder().append(message);
+			}
+			builder.builder().append(value);
+			end(builder, ERROR);
+		}
+	}
+
+	public static void error(CharSequence message, boolean value) {
+		if (LEVEL > 0) {
+			final LoggerBuilder builder = begin(ERROR);
+			if (message != null) {
+				builder.builder().append(message);
+			}
+			builder.builder().append(value);
+			end(builder, ERROR);
+		}
+	}
+
+	/** 仅当级别启用时获取消息对象 */
+	public static void errorLazy(Supplier<?> message) {
+		if (LEVEL > 0) {
+			final LoggerBuilder builder = begin(ERROR);
+			append(builder.builder(), message.get());
+			end(builder, ERROR);
+		}
+	}
+
+	/** 仅当级别启用时回调，消息直接写入日志缓存 */
+	public static void errorWith(Consumer<StringBuilder> writer) {
+		if (LEVEL > 0) {
+			final LoggerBuilder builder = begin(ERROR);
+			writer.accept(builder.builder());
+			end(builder, ERROR);
 		}
 	}
 
 	public static void error(Throwable e) {
 		if (LEVEL > 0) {
-			final LoggerBuilder builder = LoggerBuilder.instance();
-			builder.timestamp = System.currentTimeMillis();
-			LoggerBuilder.encodeTime(builder.builder(), builder.timestamp);
-			build(builder.builder(), ERROR, e);
+			final LoggerBuilder builder = begin(ERROR);
+			build(builder.builder(), e);
 			output(builder, ERROR);
 		}
 	}
 
+	/** 开始日志：时间 线程名 消息类型 */
+	static LoggerBuilder begin(String type) {
+		final LoggerBuilder builder = LoggerBuilder.instance();
+		builder.timestamp = System.currentTimeMillis();
+		LoggerBuilder.encodeTime(builder.builder(), builder.timestamp);
+		builder.builder().append(TAB);
+		builder.builder().append(Thread.currentThread().getName());
+		builder.builder().append(TAB);
+		builder.builder().append(type);
+		builder.builder().append(TAB);
+		return builder;
+	}
+
+	/** 结束日志：换行并输出 */
+	static void end(LoggerBuilder builder, String type) {
+		builder.builder().append(LINE);
+		output(builder, type);
+	}
+
+	/** 添加多个消息对象，单个 null 参数传入的数组为 null */
+	static void appends(StringBuilder builder, Object[] values) {
+		if (values != null) {
+			for (int index = 0; index < values.length; index++) {
+				append(builder, values[index]);
+			}
+		}
+	}
+
+	/**
+	 * 添加消息对象，字符序列和数值直接写入，避免通过 toString() 产生临时字符串
+	 */
+	static void append(StringBuilder builder, Object value) {
+		if (value == null) {
+			return;
+		}
+		if (value instanceof CharSequence) {
+			builder.append((CharSequence) value);
+		} else if (value instanceof Integer) {
+			builder.append(((Integer) value).intValue());
+		} else if (value instanceof Long) {
+			builder.append(((Long) value).longValue());
+		} else if (value instanceof Character) {
+			builder.append(((Character) value).charValue());
+		} else if (value instanceof Boolean) {
+			builder.append(((Boolean) value).booleanValue());
+		} else if (value instanceof Double) {
+			builder.append(((Double) value).doubleValue());
+		} else if (value instanceof Float) {
+			builder.append(((Float) value).floatValue());
+		} else {
+			builder.append(value);
+		}
+	}
+
 	private final static ReentrantLock lock = new ReentrantLock();
 	private final static ByteBuffer buffer = ByteBuffer.allocateDirect(1024);
 
-	private static void output(LoggerBuilder builder, String type) {
+	static void output(LoggerBuilder builder, String type) {
 		if (CONSOLE) {
-			if (type == ERROR) {
+			final LoggerConsole c = type == ERROR ? consoleError : console;
+			if (c != null) {
+				c.put(builder);
+			} else if (type == ERROR) {
 				System.err.append(builder.builder());
 			} else {
 				System.out.append(builder.builder());
 			}
 		}
 
+		final LoggerBlackBox b = blackbox;
+		if (b != null) {
+			b.record(builder);
+		}
+
+		final AsynchronousWriter w = writer;
+		if (w != null) {
+			w.put(builder);
+			return;
+		}
+
 		lock.lock();
 		try {
-			while (!builder.encodeUTF8(buffer)) {
-				buffer.flip();
-				if (file != null) {
-					file.output(buffer, builder.timestamp);
-				}
-				if (udp != null) {
-					buffer.position(0);
-					udp.output(buffer);
-				}
-				buffer.clear();
-			}
-			buffer.flip();
+			write(builder);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/** 输出日志到文件和网络，调用者须持有锁 */
+	private static void write(LoggerBuilder builder) throws IOException {
+		try {
 			if (file != null) {
-				file.output(buffer, builder.timestamp);
+				file.output(builder, buffer);
 			}
 			if (udp != null) {
-				buffer.position(0);
-				udp.output(buffer);
+				builder.rewind();
+				udp.output(builder);
+			}
+			if (tcp != null) {
+				builder.rewind();
+				tcp.output(builder);
 			}
-			buffer.clear();
-		} catch (IOException e) {
-			throw new RuntimeException(e);
 		} finally {
-			lock.unlock();
+			buffer.clear();
 			builder.release();
 		}
 	}
 
-	/**
-	 * <pre>
-	 * 2021-02-02 15:17:17 main INFO fields
-	 * </pre>
-	 */
-	private static void build(StringBuilder builder, String type, Object[] fields) {
-		// builder.append(TIME_FORMATTER.format(LocalTime.now()));
-		builder.append(TAB);
-		builder.append(Thread.currentThread().getName());
-		builder.append(TAB);
-		builder.append(type);
-		builder.append(TAB);
+	/** 异步写，调用线程将日志放入环形队列，由单个后台线程写入文件和网络 */
+	private static class AsynchronousWriter extends LoggerWriter<LoggerBuilder> {
+		/** 待写的日志记录 */
+		private final LoggerRing<LoggerBuilder> RECORDS = new LoggerRing<>(4096);
+		private volatile boolean end;
+
+		public AsynchronousWriter() {
+			super("LOGGER");
+			LoggerService.register(this);
+		}
 
-		for (int index = 0; index < fields.length; index++) {
-			if (fields[index] != null) {
-				builder.append(fields[index]);
+		@Override
+		public void put(LoggerBuilder builder) {
+			try {
+				if (end) {
+					// 已关闭，同步写入
+					lock.lock();
+					try {
+						write(builder);
+					} finally {
+						lock.unlock();
+					}
+					return;
+				}
+				// 队列已满时等待写入线程
+				RECORDS.put(builder, this);
+				signal();
+				if (end) {
+					// 放入队列时正在关闭，关闭线程可能已输出剩余日志
+					drain();
+				}
+			} catch (IOException e) {
+				throw new RuntimeException(e);
+			}
+		}
+
+		/** 输出队列中剩余的日志 */
+		private void drain() throws IOException {
+			lock.lock();
+			try {
+				LoggerBuilder builder;
+				while ((builder = RECORDS.poll()) != null) {
+					write(builder);
+				}
+			} finally {
+				lock.unlock();
 			}
 		}
-		builder.append(LINE);
-	}
 
-	private static void build(StringBuilder builder, String type, Throwable exception) {
-		// builder.append(TIME_FORMATTER.format(LocalTime.now()));
-		builder.append(TAB);
-		builder.append(Thread.currentThread().getName());
-		builder.append(TAB);
-		builder.append(type);
-		builder.append(TAB);
+		@Override
+		protected boolean pending() {
+			return end || !RECORDS.isEmpty();
+		}
 
+		@Override
+		public void run() {
+			LoggerBuilder builder;
+			while (!end) {
+				builder = RECORDS.poll();
+				if (builder == null) {
+					idle();
+					continue;
+				}
+				busy();
+				lock.lock();
+				try {
+					do {
+						try {
+							write(builder);
+						} catch (IOException e) {
+							e.printStackTrace();
+						}
+						builder = RECORDS.poll();
+					} while (builder != null);
+				} finally {
+					lock.unlock();
+				}
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			LoggerService.remove(this);
+			end = true;
+			LockSupport.unpark(this);
+			try {
+				join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+
+			// 输出剩余日志，此后放入的日志由调用线程同步写入
+			drain();
+		}
+	}
+
+	/**
+	 * <pre>
+	 * 2021-02-02 15:17:17 main ERROR exception
+	 * </pre>
+	 */
+	static void build(StringBuilder builder, Throwable exception) {
 		if (exception != null) {
 			builder.append(exception.getClass().getName());
 			if (exception.getLocalizedMessage() != null) {
@@ -0,0 +1,457 @@
+/*
+ * Copyright © 2017-2025 重庆骄智科技有限公司.
+ * 本软件根据 Apache License 2.0 开源，详见 LICENSE 文件。
+ */
+package com.joyzl.logger;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 日志汇聚服务，接收网络日志并按发送方写入各自的日志文件"192.168.0.2-20261018.log"
+ * <p>
+ * 接收线程仅将数据报原样复制到发送方的暂存区，不解码字符；
+ * 写入线程定时或暂存区积累较多时以聚集写入(GatheringByteChannel.write(ByteBuffer[]))批量写入文件；
+ * 发送方的文件与其它可轮换日志相同按周期和大小轮换，可启用内存映射追加；
+ * 打开文件的发送方数量有限，超出时关闭最久未写入的发送方文件；长时间没有日志的发送方将被移除。
+ * </p>
+ * <p>
+ * 启用重排({@link #setReorder(long, int)})后，数据报解码并按时间戳排序后再写入文件。
+ * </p>
+ *
+ * @author ZhangXi 2026年10月18日
+ */
+public class LoggerAggregator extends LoggerReceiver {
+
+	/** 按发送方主机区分文件 */
+	public final static int BY_HOST = 1;
+	/** 按发送方主机和端口区分文件 */
+	public final static int BY_ADDRESS = 2;
+
+	/** 暂存块大小 */
+	final static int CHUNK = 65536;
+	/** 每个发送方暂存块数量上限 */
+	final static int CHUNKS = 64;
+	/** 写入间隔(毫秒) */
+	final static int LINGER = 10;
+	/** 发送方空闲关闭时间(毫秒) */
+	final static long IDLE = 60000;
+
+	private final String directory;
+	private final int route;
+	private final int files;
+	private final ConcurrentHashMap<Object, Sink> sinks = new ConcurrentHashMap<>();
+	/** 暂存块对象池 */
+	private final ArrayDeque<ByteBuffer> chunks = new ArrayDeque<>();
+	private final AtomicLong drops = new AtomicLong();
+	private final AtomicLong writes = new AtomicLong();
+	private final AtomicLong evicts = new AtomicLong();
+	private final Writer writer;
+	private volatile long idle = IDLE;
+	/** 发送方文件的轮换周期(分钟)、文件最大字节数量和内存映射窗口 */
+	private volatile int period = RotatableLogger.DAILY, mapped;
+	private volatile long size;
+
+	/**
+	 * @param directory 日志目录
+	 * @param port 端口
+	 * @param threads 接收线程数量
+	 */
+	public LoggerAggregator(String directory, int port, int threads) throws IOException {
+		this(directory, port, threads, BY_HOST, 256);
+	}
+
+	/**
+	 * @param directory 日志目录
+	 * @param port 端口
+	 * @param threads 接收线程数量
+	 * @param route BY_HOST / BY_ADDRESS
+	 * @param files 打开文件的发送方数量上限
+	 */
+	public LoggerAggregator(String directory, int port, int threads, int route, int files) throws IOException {
+		super(port, threads, false);
+		this.directory = directory;
+		this.route = route;
+		this.files = Math.max(1, files);
+		writer = new Writer();
+		writer.setDaemon(true);
+		writer.start();
+		LoggerService.register(writer);
+		start();
+	}
+
+	@Override
+	protected void receive(SocketAddress address, ByteBuffer buffer) {
+		if (getReorder() != null) {
+			// 解码后经重排按时间戳顺序交付
+			super.receive(address, buffer);
+		} else {
+			append(address, buffer);
+		}
+	}
+
+	/** 重排后交付的日志 */
+	@Override
+	protected void receive(SocketAddress address, CharSequence chars) {
+		append(address, StandardCharsets.UTF_8.encode(CharBuffer.wrap(chars)));
+	}
+
+	/** 复制到发送方的暂存区 */
+	private void append(SocketAddress address, ByteBuffer buffer) {
+		final Object key = key(address);
+		Sink sink;
+		boolean full;
+		while (true) {
+			sink = sinks.get(key);
+			if (sink == null) {
+				try {
+					sink = sink(address);
+				} catch (IOException e) {
+					drops.incrementAndGet();
+					return;
+				}
+			}
+			sink.lock.lock();
+			try {
+				if (sink.evicted) {
+					// 已因空闲而关闭，重新获取
+					continue;
+				}
+				if (!sink.append(buffer)) {
+					drops.incrementAndGet();
+					return;
+				}
+				full = sink.count >= CHUNKS / 2;
+			} finally {
+				sink.lock.unlock();
+			}
+			break;
+		}
+		if (full) {
+			writer.put(sink);
+		}
+	}
+
+	private Object key(SocketAddress address) {
+		if (route == BY_HOST && address instanceof InetSocketAddress a) {
+			return a.getAddress();
+		}
+		return address;
+	}
+
+	private synchronized Sink sink(SocketAddress address) throws IOException {
+		final Object key = key(address);
+		Sink sink = sinks.get(key);
+		if (sink == null) {
+			String name;
+			if (address instanceof InetSocketAddress a) {
+				name = a.getAddress().getHostAddress();
+				if (route == BY_ADDRESS) {
+					name = name + '_' + a.getPort();
+				}
+			} else {
+				name = address.toString();
+			}
+			// IPv6 地址的冒号不能用于文件名
+			sink = new Sink(key, directory, name.replace(':', '_').replace('%', '_'));
+			sink.setRotation(period, size);
+			sink.setMapped(mapped);
+			sinks.put(key, sink);
+		}
+		return sink;
+	}
+
+	private ByteBuffer acquire(int size) {
+		if (size > CHUNK) {
+			return ByteBuffer.allocateDirect(size);
+		}
+		synchronized (chunks) {
+			final ByteBuffer chunk = chunks.poll();
+			if (chunk != null) {
+				return chunk;
+			}
+		}
+		return ByteBuffer.allocateDirect(CHUNK);
+	}
+
+	private void release(ByteBuffer chunk) {
+		if (chunk.capacity() == CHUNK) {
+			chunk.clear();
+			synchronized (chunks) {
+				chunks.offer(chunk);
+			}
+		}
+	}
+
+	/** 丢弃的数据报数量，包括暂存区已满和文件不可用 */
+	@Override
+	public long getDrops() {
+		return super.getDrops() + drops.get();
+	}
+
+	/** 聚集写入次数 */
+	public long getWrites() {
+		return writes.get();
+	}
+
+	/** 设置发送方空闲关闭时间(毫秒)，超过此时间没有日志的发送方将被移除并关闭文件 */
+	public void setIdle(long value) {
+		idle = Math.max(LINGER, value);
+	}
+
+	/** 发送方空闲关闭时间(毫秒) */
+	public long getIdle() {
+		return idle;
+	}
+
+	/** 因空闲而关闭的发送方数量 */
+	public long getEvicts() {
+		return evicts.get();
+	}
+
+	/**
+	 * 设置发送方文件的轮换策略，参见 {@link RotatableLogger#setRotation(int, long)}
+	 */
+	public synchronized void setRotation(int minutes, long size) {
+		for (Sink sink : sinks.values()) {
+			sink.setRotation(minutes, size);
+		}
+		period = minutes;
+		this.size = size;
+	}
+
+	/**
+	 * 设置发送方文件的内存映射追加模式，参见 {@link RotatableLogger#setMapped(int)}
+	 */
+	public synchronized void setMapped(int window) {
+		for (Sink sink : sinks.values()) {
+			sink.setMapped(window);
+		}
+		mapped = window;
+	}
+
+	/** 发送方数量 */
+	public int getSenders() {
+		return sinks.size();
+	}
+
+	/** 日志目录 */
+	public String getDirectory() {
+		return directory;
+	}
+
+	@Override
+	public void close() throws IOException {
+		super.close();
+		LoggerService.remove(writer);
+		writer.close();
+		for (Sink sink : sinks.values()) {
+			LoggerService.remove(sink);
+			sink.close();
+		}
+	}
+
+	/** 发送方日志文件和暂存区 */
+	final class Sink extends RotatableLogger {
+
+		final ReentrantLock lock = new ReentrantLock();
+		final Object key;
+		/** 已因空闲而移除 */
+		boolean evicted;
+		/** 接收线程写入 */
+		ByteBuffer[] input = new ByteBuffer[CHUNKS];
+		/** 写入线程输出 */
+		ByteBuffer[] output = new ByteBuffer[CHUNKS];
+		int count;
+		/** 暂存的数据报数量 */
+		int datagrams;
+		/** 以下仅写入线程访问 */
+		int writing;
+		/** 最后写入的时间 */
+		long active = System.currentTimeMillis();
+
+		Sink(Object key, String directory, String name) throws IOException {
+			super(directory, name, "-", ".log");
+			this.key = key;
+			// 注册以便过期清理
+			LoggerService.register(this);
+		}
+
+		/** 追加数据报到暂存区，返回 false 表示暂存区已满 */
+		boolean append(ByteBuffer buffer) {
+			if (count == 0 || input[count - 1].remaining() < buffer.remaining()) {
+				if (count >= CHUNKS) {
+					return false;
+				}
+				input[count++] = acquire(buffer.remaining());
+			}
+			input[count - 1].put(buffer);
+			datagrams++;
+			return true;
+		}
+
+		/** 没有暂存的数据报时标记为已移除，返回 false 表示仍有数据报 */
+		boolean evict() {
+			lock.lock();
+			try {
+				if (count > 0) {
+					return false;
+				}
+				evicted = true;
+				sinks.remove(key, this);
+				return true;
+			} finally {
+				lock.unlock();
+			}
+		}
+
+		/** 交换暂存区，返回待写入的块数量 */
+		int swap() {
+			lock.lock();
+			try {
+				final int size = count;
+				final ByteBuffer[] buffers = input;
+				input = output;
+				output = buffers;
+				writing = datagrams;
+				datagrams = 0;
+				count = 0;
+				return size;
+			} finally {
+				lock.unlock();
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			retires();
+		}
+	}
+
+	/** 写入线程 */
+	final class Writer extends LoggerWriter<Sink> {
+
+		/** 打开的文件，按访问排序 */
+		private final LinkedHashMap<Sink, Sink> opens = new LinkedHashMap<>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Sink, Sink> eldest) {
+				if (size() > files) {
+					try {
+						eldest.getKey().releases();
+					} catch (IOException e) {
+						// 忽略关闭错误
+					}
+					return true;
+				}
+				return false;
+			}
+		};
+		private volatile boolean end;
+
+		Writer() {
+			super("LOGGER AGGREGATOR");
+		}
+
+		@Override
+		public void put(Sink sink) {
+			LockSupport.unpark(this);
+		}
+
+		@Override
+		public void run() {
+			final long nanos = TimeUnit.MILLISECONDS.toNanos(LINGER);
+			while (!end) {
+				LockSupport.parkNanos(this, nanos);
+				flush();
+			}
+		}
+
+		void flush() {
+			final long now = System.currentTimeMillis();
+			for (Sink sink : sinks.values()) {
+				final int size = sink.swap();
+				if (size > 0) {
+					sink.active = now;
+					try {
+						write(sink, size);
+					} catch (IOException e) {
+						drops.addAndGet(sink.writing);
+						opens.remove(sink);
+						try {
+							sink.releases();
+						} catch (IOException x) {
+							// 忽略关闭错误
+						}
+					}
+					for (int index = 0; index < size; index++) {
+						release(sink.output[index]);
+						sink.output[index] = null;
+					}
+				} else if (now - sink.active > idle) {
+					evict(sink);
+				}
+			}
+		}
+
+		/** 移除并关闭空闲的发送方，避免发送方(特别是 BY_ADDRESS 的临时端口)持续增加 */
+		private void evict(Sink sink) {
+			if (sink.evict()) {
+				opens.remove(sink);
+				LoggerService.remove(sink);
+				try {
+					sink.close();
+				} catch (IOException e) {
+					// 忽略关闭错误
+				}
+				evicts.incrementAndGet();
+			}
+		}
+
+		private void write(Sink sink, int size) throws IOException {
+			final ByteBuffer[] buffers = sink.output;
+			long length = 0;
+			for (int index = 0; index < size; index++) {
+				buffers[index].flip();
+				length += buffers[index].remaining();
+			}
+			final GatheringByteChannel channel = sink.channel(System.currentTimeMillis(), (int) length);
+			opens.put(sink, sink);
+			while (buffers[size - 1].hasRemaining()) {
+				channel.write(buffers, 0, size);
+			}
+			writes.incrementAndGet();
+		}
+
+		@Override
+		public void close() throws IOException {
+			end = true;
+			LockSupport.unpark(this);
+			try {
+				join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			// 写入剩余日志
+			flush();
+			for (Sink sink : opens.keySet()) {
+				sink.close();
+			}
+			opens.clear();
+		}
+	}
+}
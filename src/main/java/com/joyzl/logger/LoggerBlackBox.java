@@ -0,0 +1,278 @@
+/*
+ * Copyright © 2017-2025 重庆骄智科技有限公司.
+ * 本软件根据 Apache License 2.0 开源，详见 LICENSE 文件。
+ */
+package com.joyzl.logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * 日志黑匣子，固定大小的内存映射环形日志，每条日志仅复制到映射内存，不执行 force；
+ * 进程异常终止(SIGKILL / OOM)后映射内存中的数据仍由操作系统写回文件，
+ * 重启后可读取异常终止前的最后若干条日志，包括尚在队列中而未写入日志文件的日志。
+ * <p>
+ * 每条日志以24字节头部开始并按8字节对齐：标识(4) 长度(4) 序号(8) 校验(4) 保留(4)；
+ * 校验覆盖长度、序号和日志内容，写满时回到起始位置覆盖最早的日志，
+ * 被部分覆盖或写入中断的日志校验失败而被忽略；读取时按序号排序。
+ * </p>
+ *
+ * @author ZhangXi 2026年10月18日
+ */
+public final class LoggerBlackBox implements Closeable {
+
+	/** 日志头部标识 */
+	final static int MAGIC = 0x4A4C4242;
+	/** 日志头部字节数量 */
+	final static int HEADER = 24;
+	/** 默认容量(字节) */
+	public final static int CAPACITY = 1024 * 1024;
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final CRC32 crc = new CRC32();
+	private final FileChannel channel;
+	private final Path file;
+	private final int capacity;
+	/** 映射内存和用于计算校验的视图 */
+	private MappedByteBuffer mapped;
+	private ByteBuffer view;
+	/** 编码日志的缓存 */
+	private ByteBuffer buffer = ByteBuffer.allocateDirect(1024);
+	/** 下一条日志的写入位置和序号 */
+	private int position;
+	private long sequence;
+
+	public LoggerBlackBox(String file) throws IOException {
+		this(file, CAPACITY);
+	}
+
+	/**
+	 * 打开或创建黑匣子文件，已有日志保留，新日志接续最后的序号
+	 *
+	 * @param capacity 容量(字节)
+	 */
+	public LoggerBlackBox(String file, int capacity) throws IOException {
+		this.file = Path.of(file).toAbsolutePath();
+		this.capacity = capacity & ~7;
+		if (this.capacity < HEADER * 2) {
+			throw new IllegalArgumentException("容量过小:" + capacity);
+		}
+		channel = FileChannel.open(this.file, //
+			StandardOpenOption.CREATE, //
+			StandardOpenOption.READ, //
+			StandardOpenOption.WRITE);
+		try {
+			mapped = channel.map(MapMode.READ_WRITE, 0, this.capacity);
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+		view = mapped.duplicate();
+
+		// 接续最后的日志
+		final List<Entry> entries = scan(mapped, this.capacity);
+		if (!entries.isEmpty()) {
+			final Entry last = entries.get(entries.size() - 1);
+			sequence = last.sequence + 1;
+			position = align(last.offset + HEADER + last.length);
+			if (position >= this.capacity) {
+				position = 0;
+			}
+		}
+	}
+
+	/**
+	 * 记录日志，编码后复制到映射内存；编码后重置编码位置，不影响日志的其它输出
+	 */
+	public void record(LoggerBuilder builder) {
+		lock.lock();
+		try {
+			buffer.clear();
+			builder.rewind();
+			while (!builder.encodeUTF8(buffer)) {
+				final ByteBuffer larger = ByteBuffer.allocateDirect(buffer.capacity() * 2);
+				larger.put(buffer.flip());
+				buffer = larger;
+			}
+			builder.rewind();
+			buffer.flip();
+			put(buffer);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * 记录已编码的日志
+	 */
+	public void record(byte[] bytes, int offset, int length) {
+		lock.lock();
+		try {
+			if (buffer.capacity() < length) {
+				buffer = ByteBuffer.allocateDirect(Math.max(buffer.capacity() * 2, length));
+			}
+			buffer.clear();
+			buffer.put(bytes, offset, length);
+			buffer.flip();
+			put(buffer);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/** 复制日志到映射内存，调用者须持有锁 */
+	private void put(ByteBuffer src) {
+		final MappedByteBuffer m = mapped;
+		if (m == null) {
+			return;
+		}
+		// 超过容量的日志截断
+		final int length = Math.min(src.remaining(), capacity - HEADER);
+		if (position + HEADER + length > capacity) {
+			position = 0;
+		}
+		final int p = position;
+		// 先清除标识，写入中断的日志不会被识别
+		m.putInt(p, 0);
+		m.putInt(p + 4, length);
+		m.putLong(p + 8, sequence);
+		m.put(p + HEADER, src, src.position(), length);
+		m.putInt(p + 16, checksum(crc, view, p, length));
+		m.putInt(p + 20, 0);
+		m.putInt(p, MAGIC);
+
+		sequence++;
+		position = align(p + HEADER + length);
+		if (position >= capacity) {
+			position = 0;
+		}
+	}
+
+	private static int align(int value) {
+		return (value + 7) & ~7;
+	}
+
+	/** 校验长度、序号和日志内容 */
+	private static int checksum(CRC32 crc, ByteBuffer view, int offset, int length) {
+		crc.reset();
+		view.limit(offset + 16).position(offset + 4);
+		crc.update(view);
+		view.limit(offset + HEADER + length).position(offset + HEADER);
+		crc.update(view);
+		return (int) crc.getValue();
+	}
+
+	/** 扫描有效的日志，按序号排序 */
+	private static List<Entry> scan(ByteBuffer buffer, int capacity) {
+		final List<Entry> entries = new ArrayList<>();
+		final ByteBuffer view = buffer.duplicate();
+		final CRC32 crc = new CRC32();
+		int offset = 0, length;
+		while (offset + HEADER <= capacity) {
+			if (buffer.getInt(offset) == MAGIC) {
+				length = buffer.getInt(offset + 4);
+				if (length >= 0 && length <= capacity - HEADER - offset) {
+					if (buffer.getInt(offset + 16) == checksum(crc, view, offset, length)) {
+						entries.add(new Entry(buffer.getLong(offset + 8), offset, length));
+						offset = align(offset + HEADER + length);
+						continue;
+					}
+				}
+			}
+			offset += 8;
+		}
+		entries.sort((a, b) -> Long.compare(a.sequence, b.sequence));
+		return entries;
+	}
+
+	/** 读取最后若干条日志 */
+	private static List<String> read(ByteBuffer buffer, int capacity, int count) {
+		final List<Entry> entries = scan(buffer, capacity);
+		final List<String> records = new ArrayList<>(Math.min(count, entries.size()));
+		for (int index = Math.max(0, entries.size() - count); index < entries.size(); index++) {
+			final Entry entry = entries.get(index);
+			final byte[] bytes = new byte[entry.length];
+			buffer.get(entry.offset + HEADER, bytes);
+			records.add(new String(bytes, StandardCharsets.UTF_8));
+		}
+		return records;
+	}
+
+	/**
+	 * 读取最后若干条日志，按记录顺序排列
+	 */
+	public List<String> records(int count) {
+		lock.lock();
+		try {
+			if (mapped == null) {
+				return read(file, count);
+			}
+			return read(mapped, capacity, count);
+		} catch (IOException e) {
+			return new ArrayList<>();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * 从黑匣子文件读取最后若干条日志，通常用于重启后查看异常终止前的日志
+	 */
+	public static List<String> read(Path file, int count) throws IOException {
+		try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			final int capacity = (int) Math.min(Integer.MAX_VALUE, channel.size()) & ~7;
+			return read(channel.map(MapMode.READ_ONLY, 0, capacity), capacity, count);
+		}
+	}
+
+	/** 下一条日志的序号，即累计记录的日志数量 */
+	public long getSequence() {
+		return sequence;
+	}
+
+	/** 容量(字节) */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/** 黑匣子文件 */
+	public Path getFile() {
+		return file;
+	}
+
+	/** 关闭后不再记录日志，映射内存由垃圾回收释放 */
+	@Override
+	public void close() throws IOException {
+		lock.lock();
+		try {
+			mapped = null;
+			view = null;
+			channel.close();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private final static class Entry {
+		final long sequence;
+		final int offset;
+		final int length;
+
+		Entry(long sequence, int offset, int length) {
+			this.sequence = sequence;
+			this.offset = offset;
+			this.length = length;
+		}
+	}
+}
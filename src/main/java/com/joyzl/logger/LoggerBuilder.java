@@ -7,7 +7,7 @@ package com.joyzl.logger;
 import java.nio.ByteBuffer;
 import java.time.Instant;
 import java.time.ZoneId;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.Arrays;
 
 /**
  * 具有时间戳的StringBuilder对象，用于构造日志字符串
@@ -26,33 +26,118 @@ public class LoggerBuilder {
 	final static char SPACE = ' ';
 	final static char POINT = '.';
 
-	private final static ConcurrentLinkedQueue<LoggerBuilder> BUILDERS = new ConcurrentLinkedQueue<>();
+	/*-
+	 * 对象池：每个线程持有少量对象的本地缓存，获取和释放通常无须任何同步；
+	 * 本地缓存为空或已满时，与全局共享池成批交换半数对象，分摊锁竞争。
+	 * 对象可在获取线程之外的线程释放（例如异步写入线程），
+	 * 此时对象经由共享池流转回获取线程。
+	 */
+
+	/** 线程本地缓存容量 */
+	final static int LOCAL_SIZE = 16;
+	/** 共享池容量，超出容量释放的对象将被丢弃 */
+	final static int SHARED_SIZE = 1024;
+
+	private final static ThreadLocal<Local> LOCALS = ThreadLocal.withInitial(Local::new);
+	private final static LoggerBuilder[] SHARED = new LoggerBuilder[SHARED_SIZE];
+	private static int shared;
 	static {
 		for (int i = 0; i < 64; i++) {
-			BUILDERS.offer(new LoggerBuilder());
+			SHARED[shared++] = new LoggerBuilder();
+		}
+	}
+
+	/** 线程本地缓存 */
+	private final static class Local {
+		final LoggerBuilder[] items = new LoggerBuilder[LOCAL_SIZE];
+		int size;
+
+		/** 时间前缀缓存，同一秒内仅更新毫秒部分 */
+		final char[] chars = new char[TIME_LENGTH];
+		final byte[] bytes = new byte[TIME_LENGTH];
+		long second = Long.MIN_VALUE;
+
+		Local() {
+			chars[2] = chars[5] = COLON;
+			chars[8] = POINT;
+			bytes[2] = bytes[5] = COLON;
+			bytes[8] = POINT;
+		}
+
+		Local time(long timestamp) {
+			timestamp += OFFSET_SECONDS * 1000L;
+			final long s = Math.floorDiv(timestamp, SECONDS_MILLISECOND);
+			if (s != second) {
+				second = s;
+				final int seconds = Math.floorMod(s, DAY_MILLISECOND / SECONDS_MILLISECOND);
+				digits(0, seconds / 3600);
+				digits(3, seconds / 60 % 60);
+				digits(6, seconds % 60);
+			}
+			final int millis = Math.floorMod(timestamp, SECONDS_MILLISECOND);
+			digit(9, millis / 100);
+			digits(10, millis % 100);
+			return this;
+		}
+
+		private void digits(int index, int value) {
+			digit(index, value / 10);
+			digit(index + 1, value % 10);
+		}
+
+		private void digit(int index, int value) {
+			chars[index] = (char) ('0' + value);
+			bytes[index] = (byte) ('0' + value);
+		}
+
+		/** 从共享池取回半数 */
+		void fill() {
+			synchronized (SHARED) {
+				final int count = Math.min(shared, LOCAL_SIZE / 2);
+				shared -= count;
+				System.arraycopy(SHARED, shared, items, size, count);
+				Arrays.fill(SHARED, shared, shared + count, null);
+				size += count;
+			}
+		}
+
+		/** 将半数归还共享池 */
+		void drain() {
+			final int count = LOCAL_SIZE / 2;
+			size -= count;
+			synchronized (SHARED) {
+				final int n = Math.min(SHARED_SIZE - shared, count);
+				System.arraycopy(items, size, SHARED, shared, n);
+				shared += n;
+			}
+			Arrays.fill(items, size, size + count, null);
 		}
 	}
 
 	public static LoggerBuilder instance() {
-		LoggerBuilder builder = BUILDERS.poll();
-		if (builder == null) {
-			builder = new LoggerBuilder();
+		final Local local = LOCALS.get();
+		if (local.size == 0) {
+			local.fill();
+			if (local.size == 0) {
+				return new LoggerBuilder();
+			}
 		}
+		final LoggerBuilder builder = local.items[--local.size];
+		local.items[local.size] = null;
 		return builder;
 	}
 
-	/** 10:25:20.998 */
+	/** 时间字符长度 "10:25:20.998" */
+	public final static int TIME_LENGTH = 12;
+
+	/** 10:25:20.998 固定宽度，不足位补零 */
 	public static void encodeTime(StringBuilder builder, long timestamp) {
-		timestamp = timestamp % DAY_MILLISECOND;
-		timestamp += OFFSET_SECONDS * 1000;
-
-		builder.append(timestamp / HOUR_MILLISECOND);
-		builder.append(COLON);
-		builder.append((timestamp / MINUTES_MILLISECOND) % 60);
-		builder.append(COLON);
-		builder.append((timestamp / SECONDS_MILLISECOND) % 60);
-		builder.append(POINT);
-		builder.append(timestamp % SECONDS_MILLISECOND);
+		builder.append(LOCALS.get().time(timestamp).chars, 0, TIME_LENGTH);
+	}
+
+	/** 10:25:20.998 固定宽度，不足位补零，UTF-8 */
+	public static void encodeTime(ByteBuffer buffer, long timestamp) {
+		buffer.put(LOCALS.get().time(timestamp).bytes, 0, TIME_LENGTH);
 	}
 
 	////////////////////////////////////////////////////////////////////////////////
@@ -69,11 +154,27 @@ public class LoggerBuilder {
 		return builder;
 	}
 
-	public void release() {
+	/** 重置编码位置，以便再次编码输出 */
+	public void rewind() {
+		index = 0;
+	}
+
+	/** 清空内容，不归还对象池 */
+	public void clear() {
 		index = 0;
 		timestamp = 0;
 		builder.setLength(0);
-		BUILDERS.offer(this);
+	}
+
+	/** 清空内容并归还对象池 */
+	public void release() {
+		clear();
+
+		final Local local = LOCALS.get();
+		if (local.size == LOCAL_SIZE) {
+			local.drain();
+		}
+		local.items[local.size++] = this;
 	}
 
 	/**
@@ -161,6 +262,25 @@ public class LoggerBuilder {
 		return true;
 	}
 
+	/** 编码为UTF8字节串的长度，与 encodeUTF8 输出一致 */
+	public int lengthUTF8() {
+		int length = 0, code;
+		for (int i = 0; i < builder.length(); i++) {
+			code = builder.charAt(i);
+			if (code <= 0x7F) {
+				length += 1;
+			} else if (code <= 0x7FF) {
+				length += 2;
+			} else if (code >= 0xD800 && code <= 0xDBFF && i + 1 < builder.length()) {
+				code = builder.charAt(++i);
+				length += code >= 0xDC00 && code <= 0xDFFF ? 4 : 3;
+			} else {
+				length += 3;
+			}
+		}
+		return length;
+	}
+
 	/**
 	 * 解码UTF8字节串为字符串
 	 * 
@@ -0,0 +1,506 @@
+/*
+ * Copyright © 2017-2025 重庆骄智科技有限公司.
+ * 本软件根据 Apache License 2.0 开源，详见 LICENSE 文件。
+ */
+package com.joyzl.logger;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * 命名日志，按名称分级设置日志级别，输出与 Logger 相同
+ *
+ * <p>
+ * 名称以'.'分级，未设置级别时继承上级的级别，顶级继承 Logger 全局级别；
+ * 有效级别缓存于实例，任何级别变更将递增全局版本号使缓存失效，
+ * 因此级别判断与 Logger 全局级别判断相同，仅需读取一次 volatile 变量。
+ * </p>
+ *
+ * @author ZhangXi 2026年10月18日
+ */
+public final class LoggerCategory {
+
+	/** 继承上级级别 */
+	public final static int INHERIT = -1;
+
+	private final static ConcurrentHashMap<String, LoggerCategory> CATEGORIES = new ConcurrentHashMap<>();
+	/** 无效的有效级别缓存 */
+	private final static int INVALID = 0x80000000;
+	/** 级别版本，任何级别变更时递增 */
+	private static volatile int VERSION;
+
+	static LoggerCategory get(String name) {
+		LoggerCategory category = CATEGORIES.get(name);
+		if (category == null) {
+			final int index = name.lastIndexOf('.');
+			final LoggerCategory parent = index > 0 ? get(name.substring(0, index)) : null;
+			category = CATEGORIES.computeIfAbsent(name, n -> new LoggerCategory(n, parent));
+		}
+		return category;
+	}
+
+	/** 级别已变更，使所有缓存的有效级别失效 */
+	static synchronized void changed() {
+		VERSION = (VERSION + 1) & 0x07FFFFFF;
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+
+	private final String name;
+	private final LoggerCategory parent;
+	/** 设置的级别 */
+	private volatile int level = INHERIT;
+	/** 有效级别缓存：版本(27位) 级别(低4位)，最高位为1时无效，不会与任何版本相同 */
+	private int cache = INVALID;
+
+	private LoggerCategory(String name, LoggerCategory parent) {
+		this.name = name;
+		this.parent = parent;
+	}
+
+	/** 名称 */
+	public String getName() {
+		return name;
+	}
+
+	/** 设置日志级别 ERROR=1,INFO=2,DEBUG=3，INHERIT 继承上级 */
+	public void setLevel(int value) {
+		level = value;
+		changed();
+	}
+
+	/** 设置的日志级别，INHERIT 表示继承上级 */
+	public int getLevel() {
+		return level;
+	}
+
+	/** 有效日志级别 ERROR=1,INFO=2,DEBUG=3 */
+	public int getEffectiveLevel() {
+		final int version = VERSION;
+		final int value = cache;
+		if (value >>> 4 == version) {
+			return value & 0x0F;
+		}
+		return resolve(version);
+	}
+
+	private int resolve(int version) {
+		int value = level;
+		if (value == INHERIT) {
+			if (parent != null) {
+				value = parent.getEffectiveLevel();
+			} else {
+				value = Logger.LEVEL;
+			}
+		}
+		value = Math.max(0, Math.min(value, 0x0F));
+		cache = version << 4 | value;
+		return value;
+	}
+
+	public boolean isDebug() {
+		return getEffectiveLevel() > 2;
+	}
+
+	public boolean isInfo() {
+		return getEffectiveLevel() > 1;
+	}
+
+	public boolean isError() {
+		return getEffectiveLevel() > 0;
+	}
+
+	public void info(Object... messages) {
+		if (getEffectiveLevel() > 1) {
+			output(Logger.INFOM, messages);
+		}
+	}
+
+	public void info(Object message) {
+		if (getEffectiveLevel() > 1) {
+			output(Logger.INFOM, message, null, null, null);
+		}
+	}
+
+	public void info(Object message1, Object message2) {
+		if (getEffectiveLevel() > 1) {
+			output(Logger.INFOM, message1, message2, null, null);
+		}
+	}
+
+	public void info(Object message1, Object message2, Object message3) {
+		if (getEffectiveLevel() > 1) {
+			output(Logger.INFOM, message1, message2, message3, null);
+		}
+	}
+
+	public void info(Object message1, Object message2, Object message3, Object message4) {
+		if (getEffectiveLevel() > 1) {
+			output(Logger.INFOM, message1, message2, message3, message4);
+		}
+	}
+
+	public void info(long value) {
+		if (getEffectiveLevel() > 1) {
+			output(Logger.INFOM, null, value);
+		}
+	}
+
+	public void info(char value) {
+		if (getEffectiveLevel() > 1) {
+			output(Logger.INFOM, null, value);
+		}
+	}
+
+	public void info(double value) {
+		if (getEffectiveLevel() > 1) {
+			output(Logger.INFOM, null, value);
+		}
+	}
+
+	public void info(float value) {
+		if (getEffectiveLevel() > 1) {
+			output(Logger.INFOM, null, value);
+		}
+	}
+
+	public void info(boolean value) {
+		if (getEffectiveLevel() > 1) {
+			output(Logger.INFOM, null, value);
+		}
+	}
+
+	/** 文本和基本类型值，值不装箱 */
+	public void info(CharSequence message, long value) {
+		if (getEffectiveLevel() > 1) {
+			output(Logger.INFOM, message, value);
+		}
+	}
+
+	public void info(CharSequence message, char value) {
+		if (getEffectiveLevel() > 1) {
+			output(Logger.INFOM, message, value);
+		}
+	}
+
+	public void info(CharSequence message, double value) {
+		if (getEffectiveLevel() > 1) {
+			output(Logger.INFOM, message, value);
+		}
+	}
+
+	public void info(CharSequence message, float value) {
+		if (getEffectiveLevel() > 1) {
+			output(Logger.INFOM, message, value);
+		}
+	}
+
+	public void info(CharSequence message, boolean value) {
+		if (getEffectiveLevel() > 1) {
+			output(Logger.INFOM, message, value);
+		}
+	}
+
+	public void infoLazy(Supplier<?> message) {
+		if (getEffectiveLevel() > 1) {
+			output(Logger.INFOM, message.get(), null, null, null);
+		}
+	}
+
+	public void infoWith(Consumer<StringBuilder> writer) {
+		if (getEffectiveLevel() > 1) {
+			output(Logger.INFOM, writer);
+		}
+	}
+
+	public void debug(Object... messages) {
+		if (getEffectiveLevel() > 2) {
+			output(Logger.DEBUG, messages);
+		}
+	}
+
+	public void debug(Object message) {
+		if (getEffectiveLevel() > 2) {
+			output(Logger.DEBUG, message, null, null, null);
+		}
+	}
+
+	public void debug(Object message1, Object message2) {
+		if (getEffectiveLevel() > 2) {
+			output(Logger.DEBUG, message1, message2, null, null);
+		}
+	}
+
+	public void debug(Object message1, Object message2, Object message3) {
+		if (getEffectiveLevel() > 2) {
+			output(Logger.DEBUG, message1, message2, message3, null);
+		}
+	}
+
+	public void debug(Object message1, Object message2, Object message3, Object message4) {
+		if (getEffectiveLevel() > 2) {
+			output(Logger.DEBUG, message1, message2, message3, message4);
+		}
+	}
+
+	public void debug(long value) {
+		if (getEffectiveLevel() > 2) {
+			output(Logger.DEBUG, null, value);
+		}
+	}
+
+	public void debug(char value) {
+		if (getEffectiveLevel() > 2) {
+			output(Logger.DEBUG, null, value);
+		}
+	}
+
+	public void debug(double value) {
+		if (getEffectiveLevel() > 2) {
+			output(Logger.DEBUG, null, value);
+		}
+	}
+
+	public void debug(float value) {
+		if (getEffectiveLevel() > 2) {
+			output(Logger.DEBUG, null, value);
+		}
+	}
+
+	public void debug(boolean value) {
+		if (getEffectiveLevel() > 2) {
+			output(Logger.DEBUG, null, value);
+		}
+	}
+
+	/** 文本和基本类型值，值不装箱 */
+	public void debug(CharSequence message, long value) {
+		if (getEffectiveLevel() > 2) {
+			output(Logger.DEBUG, message, value);
+		}
+	}
+
+	public void debug(CharSequence message, char value) {
+		if (getEffectiveLevel() > 2) {
+			output(Logger.DEBUG, message, value);
+		}
+	}
+
+	public void debug(CharSequence message, double value) {
+		if (getEffectiveLevel() > 2) {
+			output(Logger.DEBUG, message, value);
+		}
+	}
+
+	public void debug(CharSequence message, float value) {
+		if (getEffectiveLevel() > 2) {
+			output(Logger.DEBUG, message, value);
+		}
+	}
+
+	public void debug(CharSequence message, boolean value) {
+		if (getEffectiveLevel() > 2) {
+			output(Logger.DEBUG, message, value);
+		}
+	}
+
+	public void debugLazy(Supplier<?> message) {
+		if (getEffectiveLevel() > 2) {
+			output(Logger.DEBUG, message.get(), null, null, null);
+		}
+	}
+
+	public void debugWith(Consumer<StringBuilder> writer) {
+		if (getEffectiveLevel() > 2) {
+			output(Logger.DEBUG, writer);
+		}
+	}
+
+	public void error(Object... messages) {
+		if (getEffectiveLevel() > 0) {
+			output(Logger.ERROR, messages);
+		}
+	}
+
+	public void error(Object message) {
+		if (getEffectiveLevel() > 0) {
+			output(Logger.ERROR, message, null, null, null);
+		}
+	}
+
+	public void error(Object message1, Object message2) {
+		if (getEffectiveLevel() > 0) {
+			output(Logger.ERROR, message1, message2, null, null);
+		}
+	}
+
+	public void error(Object message1, Object message2, Object message3) {
+		if (getEffectiveLevel() > 0) {
+			output(Logger.ERROR, message1, message2, message3, null);
+		}
+	}
+
+	public void error(Object message1, Object message2, Object message3, Object message4) {
+		if (getEffectiveLevel() > 0) {
+			output(Logger.ERROR, message1, message2, message3, message4);
+		}
+	}
+
+	public void error(long value) {
+		if (getEffectiveLevel() > 0) {
+			output(Logger.ERROR, null, value);
+		}
+	}
+
+	public void error(char value) {
+		if (getEffectiveLevel() > 0) {
+			output(Logger.ERROR, null, value);
+		}
+	}
+
+	public void error(double value) {
+		if (getEffectiveLevel() > 0) {
+			output(Logger.ERROR, null, value);
+		}
+	}
+
+	public void error(float value) {
+		if (getEffectiveLevel() > 0) {
+			output(Logger.ERROR, null, value);
+		}
+	}
+
+	public void error(boolean value) {
+		if (getEffectiveLevel() > 0) {
+			output(Logger.ERROR, null, value);
+		}
+	}
+
+	/** 文本和基本类型值，值不装箱 */
+	public void error(CharSequence message, long value) {
+		if (getEffectiveLevel() > 0) {
+			output(Logger.ERROR, message, value);
+		}
+	}
+
+	public void error(CharSequence message, char value) {
+		if (getEffectiveLevel() > 0) {
+			output(Logger.ERROR, message, value);
+		}
+	}
+
+	public void error(CharSequence message, double value) {
+		if (getEffectiveLevel() > 0) {
+			output(Logger.ERROR, message, value);
+		}
+	}
+
+	public void error(CharSequence message, float value) {
+		if (getEffectiveLevel() > 0) {
+			output(Logger.ERROR, message, value);
+		}
+	}
+
+	public void error(CharSequence message, boolean value) {
+		if (getEffectiveLevel() > 0) {
+			output(Logger.ERROR, message, value);
+		}
+	}
+
+	public void errorLazy(Supplier<?> message) {
+		if (getEffectiveLevel() > 0) {
+			output(Logger.ERROR, message.get(), null, null, null);
+		}
+	}
+
+	public void errorWith(Consumer<StringBuilder> writer) {
+		if (getEffectiveLevel() > 0) {
+			output(Logger.ERROR, writer);
+		}
+	}
+
+	public void error(Throwable e) {
+		if (getEffectiveLevel() > 0) {
+			output(Logger.ERROR, e);
+		}
+	}
+
+	private static void output(String type, Object[] messages) {
+		final LoggerBuilder builder = Logger.begin(type);
+		Logger.appends(builder.builder(), messages);
+		Logger.end(builder, type);
+	}
+
+	/** 1~4个消息对象，null 不输出 */
+	private static void output(String type, Object message1, Object message2, Object message3, Object message4) {
+		final LoggerBuilder builder = Logger.begin(type);
+		Logger.append(builder.builder(), message1);
+		Logger.append(builder.builder(), message2);
+		Logger.append(builder.builder(), message3);
+		Logger.append(builder.builder(), message4);
+		Logger.end(builder, type);
+	}
+
+	private static void output(String type, CharSequence message, long value) {
+		final LoggerBuilder builder = Logger.begin(type);
+		if (message != null) {
+			builder.builder().append(message);
+		}
+		builder.builder().append(value);
+		Logger.end(builder, type);
+	}
+
+	private static void output(String type, CharSequence message, char value) {
+		final LoggerBuilder builder = Logger.begin(type);
+		if (message != null) {
+			builder.builder().append(message);
+		}
+		builder.builder().append(value);
+		Logger.end(builder, type);
+	}
+
+	private static void output(String type, CharSequence message, double value) {
+		final LoggerBuilder builder = Logger.begin(type);
+		if (message != null) {
+			builder.builder().append(message);
+		}
+		builder.builder().append(value);
+		Logger.end(builder, type);
+	}
+
+	private static void output(String type, CharSequence message, float value) {
+		final LoggerBuilder builder = Logger.begin(type);
+		if (message != null) {
+			builder.builder().append(message);
+		}
+		builder.builder().append(value);
+		Logger.end(builder, type);
+	}
+
+	private static void output(String type, CharSequence message, boolean value) {
+		final LoggerBuilder builder = Logger.begin(type);
+		if (message != null) {
+			builder.builder().append(message);
+		}
+		builder.builder().append(value);
+		Logger.end(builder, type);
+	}
+
+	private static void output(String type, Consumer<StringBuilder> writer) {
+		final LoggerBuilder builder = Logger.begin(type);
+		writer.accept(builder.builder());
+		Logger.end(builder, type);
+	}
+
+	private static void output(String type, Throwable e) {
+		final LoggerBuilder builder = Logger.begin(type);
+		Logger.build(builder.builder(), e);
+		Logger.output(builder, type);
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+}
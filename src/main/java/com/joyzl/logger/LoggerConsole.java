@@ -0,0 +1,133 @@
+/*
+ * Copyright © 2017-2025 重庆骄智科技有限公司.
+ * 本软件根据 Apache License 2.0 开源，详见 LICENSE 文件。
+ */
+package com.joyzl.logger;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 异步控制台输出，调用线程仅复制日志字符到暂存区，由后台线程成批编码为UTF-8并写入标准输出；
+ * 暂存区已满时丢弃日志，不阻塞调用线程
+ *
+ * @author ZhangXi 2026年10月18日
+ */
+public class LoggerConsole extends LoggerWriter<LoggerBuilder> {
+
+	/** 暂存区容量(字符) */
+	private final int capacity;
+	private final FileChannel channel;
+	private final ReentrantLock lock = new ReentrantLock();
+	private final ByteBuffer buffer = ByteBuffer.allocateDirect(8192);
+	private final AtomicLong drops = new AtomicLong();
+	/** 调用线程写入 */
+	private LoggerBuilder input = new LoggerBuilder();
+	/** 后台线程输出 */
+	private LoggerBuilder output = new LoggerBuilder();
+	private volatile boolean end;
+
+	/**
+	 * @param descriptor FileDescriptor.out / FileDescriptor.err
+	 * @param name 线程名
+	 * @param capacity 暂存区容量(字符)
+	 */
+	@SuppressWarnings("resource")
+	public LoggerConsole(FileDescriptor descriptor, String name, int capacity) {
+		super(name);
+		this.capacity = capacity;
+		channel = new FileOutputStream(descriptor).getChannel();
+		setDaemon(true);
+		LoggerService.register(this);
+	}
+
+	@Override
+	public void put(LoggerBuilder builder) {
+		lock.lock();
+		try {
+			if (input.length() + builder.length() > capacity) {
+				drops.incrementAndGet();
+				return;
+			}
+			input.builder().append(builder.builder());
+		} finally {
+			lock.unlock();
+		}
+		LockSupport.unpark(this);
+	}
+
+	@Override
+	public void run() {
+		while (!end) {
+			if (swap()) {
+				try {
+					write();
+				} catch (IOException e) {
+					// 控制台不可用时丢弃
+					output.clear();
+				}
+			} else {
+				LockSupport.park(this);
+			}
+		}
+	}
+
+	/** 交换暂存区，返回 false 表示没有待输出的日志 */
+	private boolean swap() {
+		lock.lock();
+		try {
+			if (input.length() == 0) {
+				return false;
+			}
+			final LoggerBuilder builder = input;
+			input = output;
+			output = builder;
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void write() throws IOException {
+		while (!output.encodeUTF8(buffer)) {
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			buffer.clear();
+		}
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+		output.clear();
+	}
+
+	/** 暂存区已满而丢弃的日志数量 */
+	public long getDrops() {
+		return drops.get();
+	}
+
+	@Override
+	public void close() throws IOException {
+		LoggerService.remove(this);
+		end = true;
+		LockSupport.unpark(this);
+		try {
+			join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		// 输出剩余日志，标准输出通道不关闭
+		if (swap()) {
+			write();
+		}
+	}
+}
@@ -6,45 +6,58 @@ package com.joyzl.logger;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
-import java.nio.channels.FileChannel;
-import java.nio.file.StandardOpenOption;
+import java.nio.channels.GatheringByteChannel;
 
 public class LoggerFile extends RotatableLogger {
 
-	private RotateFile file = RotateFile.EMPTY;
-	private FileChannel channel;
-
 	public LoggerFile(String file, String n, String s, String e) throws IOException {
 		super(file, n, s, e);
 		LoggerService.register(this);
 	}
 
 	public void output(ByteBuffer buffer, long timestamp) throws IOException {
-		if (file.beyond(timestamp)) {
-			if (channel != null && channel.isOpen()) {
-				channel.force(false);
-				channel.close();
+		final GatheringByteChannel channel = channel(timestamp, buffer.remaining());
+		if (channel.isOpen()) {
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
 			}
-			file = rotate(timestamp);
-			channel = FileChannel.open(file.path(), //
-				StandardOpenOption.CREATE, //
-				StandardOpenOption.WRITE, //
-				StandardOpenOption.APPEND);
+			// channel.force(false);
 		}
+	}
+
+	/**
+	 * 编码并输出日志，超出缓存的日志分段写入同一文件通道，
+	 * 限制文件大小时按完整日志长度切换，日志不会跨越分段文件
+	 *
+	 * @param buffer 空的编码缓存，输出后清空
+	 */
+	public void output(LoggerBuilder builder, ByteBuffer buffer) throws IOException {
+		if (builder.encodeUTF8(buffer)) {
+			buffer.flip();
+			output(buffer, builder.timestamp);
+			buffer.clear();
+			return;
+		}
+		final GatheringByteChannel channel = channel(builder.timestamp, builder.lengthUTF8());
 		if (channel.isOpen()) {
+			do {
+				buffer.flip();
+				while (buffer.hasRemaining()) {
+					channel.write(buffer);
+				}
+				buffer.clear();
+			} while (!builder.encodeUTF8(buffer));
+			buffer.flip();
 			while (buffer.hasRemaining()) {
 				channel.write(buffer);
 			}
-			// channel.force(false);
 		}
+		buffer.clear();
 	}
 
 	@Override
 	public void close() throws IOException {
 		LoggerService.remove(this);
-		if (channel != null && channel.isOpen()) {
-			channel.force(true);
-			channel.close();
-		}
+		retires();
 	}
 }
\ No newline at end of file
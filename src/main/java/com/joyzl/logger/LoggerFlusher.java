@@ -0,0 +1,272 @@
+/*
+ * Copyright © 2017-2025 重庆骄智科技有限公司.
+ * 本软件根据 Apache License 2.0 开源，详见 LICENSE 文件。
+ */
+package com.joyzl.logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.GatheringByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 日志持久化策略，由独立的刷新线程执行 force，写入线程无须等待上次 force 完成即可继续追加
+ * <p>
+ * NONE 不主动刷新，由操作系统决定；INTERVAL 每隔指定毫秒刷新；BYTES 每写入指定字节数量刷新；
+ * BATCH 每批写入后刷新，刷新期间的多个批次合并为一次刷新；SYNC 在写入线程同步刷新。
+ * 切换和关闭的文件由刷新线程刷新；关闭时同步刷新当前文件。
+ * </p>
+ *
+ * @author ZhangXi 2026年10月18日
+ */
+public class LoggerFlusher implements Closeable {
+
+	/** 持久化策略：不主动刷新 */
+	public final static int NONE = 0;
+	/** 持久化策略：每隔指定毫秒刷新 */
+	public final static int INTERVAL = 1;
+	/** 持久化策略：每写入指定字节数量刷新 */
+	public final static int BYTES = 2;
+	/** 持久化策略：每批写入后刷新 */
+	public final static int BATCH = 3;
+	/** 持久化策略：同步刷新 */
+	public final static int SYNC = 4;
+
+	private final String name;
+	/** 待刷新后关闭的文件和待刷新的非当前文件 */
+	private final List<GatheringByteChannel> closing = new ArrayList<>();
+	private final List<GatheringByteChannel> dirty = new ArrayList<>();
+	private volatile int policy;
+	private volatile long value;
+	private volatile GatheringByteChannel channel;
+	/** 累计写入和已刷新的字节数量 */
+	private volatile long written, flushed;
+	/** 已请求刷新的写入位置 */
+	private volatile long requested;
+	private final AtomicLong forces = new AtomicLong();
+	private volatile boolean end;
+	private Thread thread;
+
+	/**
+	 * @param name 刷新线程名称
+	 * @param policy 持久化策略 NONE / INTERVAL / BYTES / BATCH / SYNC
+	 * @param value INTERVAL 为毫秒，BYTES 为字节数量，其余策略忽略
+	 */
+	public LoggerFlusher(String name, int policy, long value) {
+		this.name = name;
+		setPolicy(policy, value);
+	}
+
+	/** 设置持久化策略 NONE / INTERVAL / BYTES / BATCH / SYNC */
+	public synchronized void setPolicy(int policy, long value) {
+		this.policy = policy;
+		this.value = value;
+		if (policy == INTERVAL || policy == BYTES || policy == BATCH) {
+			if (thread == null && !end) {
+				thread = new Thread(this::run, name);
+				thread.setDaemon(true);
+				thread.start();
+			}
+		}
+		LockSupport.unpark(thread);
+	}
+
+	/** 持久化策略 */
+	public int getPolicy() {
+		return policy;
+	}
+
+	/** 持久化策略参数 */
+	public long getValue() {
+		return value;
+	}
+
+	/** 执行 force 的次数 */
+	public long getForces() {
+		return forces.get();
+	}
+
+	/**
+	 * 切换当前文件，旧文件保持打开；SYNC 策略每批写入后已刷新，其余策略由刷新线程刷新旧文件
+	 */
+	public void select(GatheringByteChannel channel) {
+		final GatheringByteChannel old = this.channel;
+		if (old != null && old != channel && thread != null && policy != SYNC && policy != NONE) {
+			synchronized (closing) {
+				if (!dirty.contains(old)) {
+					dirty.add(old);
+				}
+			}
+			LockSupport.unpark(thread);
+		}
+		flushed = requested = written;
+		this.channel = channel;
+	}
+
+	/**
+	 * 关闭不再写入的文件，任何策略均刷新后关闭；SYNC 策略在调用线程执行，其余策略交由刷新线程
+	 */
+	public void retire(GatheringByteChannel old) throws IOException {
+		if (old == channel) {
+			channel = null;
+		}
+		if (thread == null || end || policy == SYNC) {
+			if (old.isOpen()) {
+				force(old);
+				old.close();
+			}
+		} else {
+			synchronized (closing) {
+				closing.add(old);
+			}
+			LockSupport.unpark(thread);
+		}
+	}
+
+	/**
+	 * 写入线程写入后调用
+	 *
+	 * @param bytes 写入的字节数量
+	 */
+	public void written(long bytes) throws IOException {
+		written += bytes;
+		if (policy == BYTES) {
+			if (written - requested >= value) {
+				request();
+			}
+		}
+	}
+
+	/**
+	 * 写入线程每批写入完成后调用
+	 */
+	public void batch() throws IOException {
+		if (written > requested) {
+			if (policy == BATCH) {
+				request();
+			} else if (policy == SYNC) {
+				final GatheringByteChannel c = channel;
+				if (c != null) {
+					requested = written;
+					force(c);
+					flushed = requested;
+				}
+			}
+		}
+	}
+
+	/**
+	 * 写入线程同步刷新当前文件，不论持久化策略，用于需确认持久化后返回的写入(如组提交)
+	 */
+	public void sync() throws IOException {
+		final GatheringByteChannel c = channel;
+		if (c != null && written > flushed) {
+			requested = written;
+			force(c);
+			flushed = requested;
+		}
+	}
+
+	private void request() {
+		requested = written;
+		if (thread != null) {
+			LockSupport.unpark(thread);
+		}
+	}
+
+	private void force(GatheringByteChannel c) throws IOException {
+		RotatableLogger.force(c);
+		forces.incrementAndGet();
+	}
+
+	private void run() {
+		long target;
+		GatheringByteChannel c;
+		while (!end) {
+			if (policy == INTERVAL) {
+				LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(Math.max(1, value)));
+				target = written;
+			} else {
+				if (requested == flushed && closing.isEmpty() && dirty.isEmpty()) {
+					LockSupport.park(this);
+				}
+				target = requested;
+			}
+			closing();
+			c = channel;
+			if (c != null && target > flushed) {
+				try {
+					// 刷新期间写入线程可继续追加，下次刷新将包含这些字节
+					force(c);
+					flushed = target;
+				} catch (IOException e) {
+					// 文件已关闭
+					flushed = target;
+				}
+			}
+		}
+	}
+
+	/** 刷新非当前文件，刷新并关闭不再写入的文件 */
+	private void closing() {
+		final GatheringByteChannel[] channels, dirties;
+		synchronized (closing) {
+			if (closing.isEmpty() && dirty.isEmpty()) {
+				return;
+			}
+			channels = closing.toArray(new GatheringByteChannel[closing.size()]);
+			closing.clear();
+			dirties = dirty.toArray(new GatheringByteChannel[dirty.size()]);
+			dirty.clear();
+		}
+		for (GatheringByteChannel c : dirties) {
+			try {
+				if (c.isOpen()) {
+					force(c);
+				}
+			} catch (IOException e) {
+				// 文件已关闭
+			}
+		}
+		for (GatheringByteChannel c : channels) {
+			try {
+				if (c.isOpen()) {
+					force(c);
+					c.close();
+				}
+			} catch (IOException e) {
+				// 忽略关闭错误
+			}
+		}
+	}
+
+	/**
+	 * 停止刷新线程，刷新并关闭不再写入的文件，同步刷新当前文件
+	 */
+	@Override
+	public void close() throws IOException {
+		final Thread t;
+		synchronized (this) {
+			end = true;
+			t = thread;
+		}
+		if (t != null) {
+			LockSupport.unpark(t);
+			try {
+				t.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		closing();
+		final GatheringByteChannel c = channel;
+		if (c != null && c.isOpen() && written > flushed) {
+			force(c);
+			flushed = written;
+		}
+	}
+}
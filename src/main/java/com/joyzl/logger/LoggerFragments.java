@@ -0,0 +1,179 @@
+/*
+ * Copyright © 2017-2025 重庆骄智科技有限公司.
+ * 本软件根据 Apache License 2.0 开源，详见 LICENSE 文件。
+ */
+package com.joyzl.logger;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+
+/**
+ * 分帧数据报重组，由 LoggerUDP 分帧发送的日志在此按发送方和序号重组为完整日志；
+ * 分段表容量有限，超时或已满时淘汰最早的不完整日志，非线程安全
+ *
+ * @author ZhangXi 2026年10月18日
+ */
+final class LoggerFragments {
+
+	/** 分段表容量 */
+	final static int SLOTS = 64;
+	/** 分段等待超时(毫秒) */
+	final static long TIMEOUT = 5000;
+	/** 跟踪序号的发送方上限 */
+	final static int SENDERS = 4096;
+
+	private final Slot[] slots = new Slot[SLOTS];
+	/** 发送方最后的序号 */
+	private final HashMap<Integer, int[]> senders = new HashMap<>();
+	/** 序号间断(丢失)的消息数量 */
+	private volatile long gaps;
+	/** 超时或淘汰的不完整日志数量 */
+	private volatile long incompletes;
+	/** 无效或重复的分段数量 */
+	private volatile long invalids;
+
+	LoggerFragments() {
+		for (int index = 0; index < SLOTS; index++) {
+			slots[index] = new Slot();
+		}
+	}
+
+	/** 判断数据报是否分帧 */
+	static boolean isFrame(ByteBuffer buffer) {
+		return buffer.remaining() >= LoggerUDP.HEADER //
+			&& buffer.get(buffer.position()) == LoggerUDP.FRAME //
+			&& buffer.get(buffer.position() + 1) == LoggerUDP.VERSION;
+	}
+
+	/**
+	 * 接收分帧数据报
+	 *
+	 * @return 完整日志的字节串，null 表示日志不完整或帧无效
+	 */
+	ByteBuffer accept(ByteBuffer buffer) {
+		buffer.position(buffer.position() + 2);
+		final int sender = buffer.getInt();
+		final int sequence = buffer.getInt();
+		final int index = buffer.getShort() & 0xFFFF;
+		final int count = buffer.getShort() & 0xFFFF;
+		track(sender, sequence);
+
+		if (count <= 1) {
+			return buffer;
+		}
+		if (index >= count) {
+			invalids++;
+			return null;
+		}
+
+		final long now = System.currentTimeMillis();
+		Slot slot = null, free = null, oldest = null;
+		for (Slot s : slots) {
+			if (s.parts == null) {
+				if (free == null) {
+					free = s;
+				}
+			} else if (s.sender == sender && s.sequence == sequence) {
+				slot = s;
+			} else if (now - s.time > TIMEOUT) {
+				s.reset();
+				incompletes++;
+				if (free == null) {
+					free = s;
+				}
+			} else if (oldest == null || s.time < oldest.time) {
+				oldest = s;
+			}
+		}
+		if (slot == null) {
+			if (free == null) {
+				oldest.reset();
+				incompletes++;
+				free = oldest;
+			}
+			slot = free;
+			slot.sender = sender;
+			slot.sequence = sequence;
+			slot.time = now;
+			slot.parts = new byte[count][];
+		}
+		if (slot.parts.length != count || slot.parts[index] != null) {
+			// 重复或冲突的分段
+			invalids++;
+			return null;
+		}
+
+		final byte[] part = new byte[buffer.remaining()];
+		buffer.get(part);
+		slot.parts[index] = part;
+		slot.size += part.length;
+		if (++slot.received < count) {
+			return null;
+		}
+
+		final ByteBuffer record = ByteBuffer.allocate(slot.size);
+		for (byte[] p : slot.parts) {
+			record.put(p);
+		}
+		slot.reset();
+		return record.flip();
+	}
+
+	private void track(int sender, int sequence) {
+		int[] last = senders.get(sender);
+		if (last == null) {
+			if (senders.size() >= SENDERS) {
+				senders.clear();
+			}
+			senders.put(sender, new int[] { sequence });
+		} else {
+			final int d = sequence - last[0];
+			if (d > 0) {
+				gaps += d - 1;
+				last[0] = sequence;
+			}
+			// d <= 0 为同一日志的分段或迟到的数据报
+		}
+	}
+
+	/** 序号间断(丢失)的消息数量，迟到的消息也计入 */
+	long getGaps() {
+		return gaps;
+	}
+
+	/** 超时或淘汰的不完整日志数量 */
+	long getIncompletes() {
+		return incompletes;
+	}
+
+	/** 无效或重复的分段数量 */
+	long getInvalids() {
+		return invalids;
+	}
+
+	/** 等待重组的日志数量 */
+	int getPending() {
+		int pending = 0;
+		for (Slot slot : slots) {
+			if (slot.parts != null) {
+				pending++;
+			}
+		}
+		return pending;
+	}
+
+	private final static class Slot {
+		int sender;
+		int sequence;
+		long time;
+		byte[][] parts;
+		int received;
+		int size;
+
+		void reset() {
+			parts = null;
+			received = 0;
+			size = 0;
+		}
+	}
+}
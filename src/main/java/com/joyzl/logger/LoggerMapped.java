@@ -0,0 +1,200 @@
+/*
+ * Copyright © 2017-2025 重庆骄智科技有限公司.
+ * 本软件根据 Apache License 2.0 开源，详见 LICENSE 文件。
+ */
+package com.joyzl.logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 内存映射的追加写入文件，按窗口映射文件，写入仅复制到映射内存，窗口写满时映射下一窗口；
+ * force 仅同步已写入而未同步的范围。
+ * <p>
+ * 映射窗口将文件扩展至窗口末尾，关闭(轮换)时截断至实际长度；截断后映射内存不再访问，由垃圾回收释放。
+ * 进程异常终止或平台拒绝截断映射中的文件(如 Windows)时文件末尾残留零字节，
+ * 再次打开时从文件末尾向前跳过至多一个窗口的零字节以确定实际长度，读取日志时遇到零字节视为结束。
+ * 仅支持单个线程写入，force 可由其它线程调用。
+ * </p>
+ *
+ * @author ZhangXi 2026年10月18日
+ */
+final class LoggerMapped implements GatheringByteChannel {
+
+	private final Object guard = new Object();
+	private final FileChannel channel;
+	private final int window;
+	/** 当前映射窗口和尚未同步的上一窗口 */
+	private volatile MappedByteBuffer mapped, previous;
+	/** 当前窗口在文件中的起始位置 */
+	private volatile long base;
+	/** 实际长度和已同步的位置 */
+	private volatile long position, forced;
+	private volatile boolean open = true;
+
+	/**
+	 * @param window 映射窗口(字节)
+	 */
+	LoggerMapped(Path file, int window) throws IOException {
+		this.window = window;
+		channel = FileChannel.open(file, //
+			StandardOpenOption.CREATE, //
+			StandardOpenOption.READ, //
+			StandardOpenOption.WRITE);
+		try {
+			position = forced = recover();
+			map(position);
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/** 从文件末尾向前跳过映射残留的零字节，至多一个窗口，返回实际长度 */
+	private long recover() throws IOException {
+		final ByteBuffer buffer = ByteBuffer.allocate(65536);
+		final long size = channel.size(), limit = Math.max(0, size - window);
+		long end = size, begin;
+		while (end > limit) {
+			begin = Math.max(limit, end - buffer.capacity());
+			buffer.clear().limit((int) (end - begin));
+			while (buffer.hasRemaining()) {
+				if (channel.read(buffer, begin + buffer.position()) < 0) {
+					break;
+				}
+			}
+			for (int index = buffer.position() - 1; index >= 0; index--) {
+				if (buffer.get(index) != 0) {
+					return begin + index + 1;
+				}
+			}
+			end = begin;
+		}
+		return limit;
+	}
+
+	private void map(long position) throws IOException {
+		base = position;
+		mapped = channel.map(MapMode.READ_WRITE, position, window);
+	}
+
+	@Override
+	public int write(ByteBuffer src) throws IOException {
+		if (!open) {
+			throw new ClosedChannelException();
+		}
+		final int size = src.remaining();
+		int offset, length;
+		while (src.hasRemaining()) {
+			offset = (int) (position - base);
+			if (offset >= window) {
+				remap();
+				offset = 0;
+			}
+			length = Math.min(window - offset, src.remaining());
+			mapped.put(offset, src, src.position(), length);
+			src.position(src.position() + length);
+			position += length;
+		}
+		return size;
+	}
+
+	@Override
+	public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+		long size = 0;
+		for (int index = offset; index < offset + length; index++) {
+			size += write(srcs[index]);
+		}
+		return size;
+	}
+
+	@Override
+	public long write(ByteBuffer[] srcs) throws IOException {
+		return write(srcs, 0, srcs.length);
+	}
+
+	/** 映射下一窗口，上一窗口待 force 同步 */
+	private void remap() throws IOException {
+		synchronized (guard) {
+			if (previous != null) {
+				// 上一窗口仍未同步
+				previous.force();
+				forced = base;
+			}
+			previous = mapped;
+			map(base + window);
+		}
+	}
+
+	/** 同步已写入而未同步的范围 */
+	void force() throws IOException {
+		synchronized (guard) {
+			if (!open) {
+				throw new ClosedChannelException();
+			}
+			sync();
+		}
+	}
+
+	/** 调用者应持有 guard */
+	private void sync() {
+		final long end = position;
+		if (previous != null) {
+			previous.force();
+			previous = null;
+			if (end > base) {
+				mapped.force(0, (int) (end - base));
+			}
+		} else if (end > forced) {
+			final long from = Math.max(forced, base);
+			mapped.force((int) (from - base), (int) (end - from));
+		}
+		forced = end;
+	}
+
+	/** 实际长度 */
+	long size() {
+		return position;
+	}
+
+	/** 映射窗口(字节) */
+	int getWindow() {
+		return window;
+	}
+
+	@Override
+	public boolean isOpen() {
+		return open;
+	}
+
+	/** 同步后截断文件至实际长度并关闭 */
+	@Override
+	public void close() throws IOException {
+		synchronized (guard) {
+			if (!open) {
+				return;
+			}
+			open = false;
+			try {
+				sync();
+			} finally {
+				// 截断后不再访问映射内存
+				mapped = previous = null;
+				try {
+					channel.truncate(position);
+				} catch (IOException e) {
+					// 平台拒绝截断映射中的文件，残留的零字节在再次打开时跳过
+				} finally {
+					channel.close();
+				}
+			}
+		}
+	}
+}
@@ -8,53 +8,210 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
 import java.nio.ByteBuffer;
 import java.nio.channels.DatagramChannel;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * 日志网络接收
- * 
+ * <p>
+ * 分帧的数据报(LoggerUDP 分帧发送)将重组为完整日志后交付，并统计丢失的消息；
+ * 未分帧的数据报按原样交付。
+ * </p>
+ * <p>
+ * 指定多个接收线程时，每个线程使用独立的通道以 SO_REUSEPORT 绑定相同端口，
+ * 由系统按发送方地址分配数据报，同一发送方的分段由同一线程重组；
+ * 此时重载的 receive 方法将被多个线程同时调用。
+ * </p>
+ * <p>
+ * 启用重排后多个发送方的日志按时间戳顺序交付，参见 {@link LoggerReorder}。
+ * </p>
+ *
  * @author ZhangXi 2025年6月10日
  */
 public class LoggerReceiver implements Closeable {
 
-	private final DatagramChannel channel;
-	private final Thread thread;
+	private final Worker[] workers;
+	private final LoggerReorder.Output output = this::receive;
+	private volatile LoggerReorder reorder;
+	private volatile Thread reorderer;
 
 	public LoggerReceiver(int port) throws IOException {
-		channel = DatagramChannel.open();
-		channel.configureBlocking(true);
-		channel.bind(new InetSocketAddress(port));
+		this(port, 1);
+	}
+
+	/**
+	 * @param port 端口
+	 * @param threads 接收线程数量，大于1时要求系统支持 SO_REUSEPORT
+	 */
+	public LoggerReceiver(int port, int threads) throws IOException {
+		this(port, threads, true);
+	}
+
+	/**
+	 * @param port 端口
+	 * @param threads 接收线程数量，大于1时要求系统支持 SO_REUSEPORT
+	 * @param start 立即启动接收线程，否则由子类初始化完成后调用 {@link #start()}
+	 */
+	protected LoggerReceiver(int port, int threads, boolean start) throws IOException {
+		if (threads < 1) {
+			threads = 1;
+		}
+		workers = new Worker[threads];
+		try {
+			for (int index = 0; index < threads; index++) {
+				workers[index] = new Worker(port, threads > 1, threads > 1 ? "LOGGER RECEIVER " + index : "LOGGER RECEIVER");
+			}
+		} catch (IOException | UnsupportedOperationException e) {
+			close();
+			throw e;
+		}
+		if (start) {
+			start();
+		}
+	}
 
-		thread = new Thread(RECEIVER, "LOGGER RECEIVER");
-		thread.setDaemon(true);
-		thread.start();
+	/** 启动接收线程 */
+	protected void start() {
+		for (Worker worker : workers) {
+			worker.start();
+		}
 	}
 
 	@Override
 	public void close() throws IOException {
-		if (channel != null && channel.isOpen()) {
-			channel.close();
-			thread.interrupt();
+		for (Worker worker : workers) {
+			if (worker != null && worker.channel.isOpen()) {
+				worker.channel.close();
+				worker.interrupt();
+			}
+		}
+		setReorder(0, 0);
+	}
+
+	/**
+	 * 设置日志重排，按日志时间戳顺序交付
+	 *
+	 * @param delay 水位延迟(毫秒)，0 关闭重排并交付暂存的日志
+	 * @param capacity 最多暂存的日志数量
+	 */
+	public synchronized void setReorder(long delay, int capacity) {
+		final LoggerReorder r = reorder;
+		final Thread t = reorderer;
+		reorder = null;
+		reorderer = null;
+		if (t != null) {
+			LockSupport.unpark(t);
+			try {
+				t.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		if (r != null) {
+			r.drain(output);
+		}
+		if (delay > 0) {
+			reorder = new LoggerReorder(delay, capacity);
+			reorderer = new Thread(REORDER, "LOGGER REORDER");
+			reorderer.setDaemon(true);
+			reorderer.start();
+		}
+	}
+
+	/** 日志重排，null 表示未启用 */
+	public LoggerReorder getReorder() {
+		return reorder;
+	}
+
+	/** 接收线程数量 */
+	public int getWorkers() {
+		return workers.length;
+	}
+
+	/** 指定接收线程接收的数据报数量 */
+	public long getReceived(int worker) {
+		return workers[worker].received;
+	}
+
+	/** 指定接收线程接收的字节数量 */
+	public long getBytes(int worker) {
+		return workers[worker].bytes;
+	}
+
+	/** 指定接收线程丢弃的数据报数量，包括无效的帧和处理异常 */
+	public long getDrops(int worker) {
+		return workers[worker].drops + workers[worker].fragments.getInvalids();
+	}
+
+	/** 接收的数据报数量 */
+	public long getReceived() {
+		long value = 0;
+		for (Worker worker : workers) {
+			value += worker.received;
+		}
+		return value;
+	}
+
+	/** 接收的字节数量 */
+	public long getBytes() {
+		long value = 0;
+		for (Worker worker : workers) {
+			value += worker.bytes;
+		}
+		return value;
+	}
+
+	/** 丢弃的数据报数量，包括无效的帧和处理异常 */
+	public long getDrops() {
+		long value = 0;
+		for (Worker worker : workers) {
+			value += worker.drops + worker.fragments.getInvalids();
+		}
+		return value;
+	}
+
+	/** 序号间断(丢失)的消息数量，仅统计分帧的数据报 */
+	public long getGaps() {
+		long value = 0;
+		for (Worker worker : workers) {
+			value += worker.fragments.getGaps();
+		}
+		return value;
+	}
+
+	/** 超时或淘汰而未能重组的日志数量 */
+	public long getIncompletes() {
+		long value = 0;
+		for (Worker worker : workers) {
+			value += worker.fragments.getIncompletes();
 		}
+		return value;
 	}
 
 	/**
 	 * 接收字节串，重载此方法实现字节解码，默认行为解码为UTF8字符串
-	 * 
+	 *
 	 * @param address 发送方地址
-	 * @param buffer 接收的字节串
+	 * @param buffer 接收的字节串，分帧的数据报已重组为完整日志
 	 */
 	protected void receive(SocketAddress address, ByteBuffer buffer) {
 		final LoggerBuilder builder = LoggerBuilder.instance();
 		builder.decodeUTF8(buffer);
-		receive(address, builder.builder());
+		final LoggerReorder r = reorder;
+		if (r != null) {
+			r.offer(address, builder.builder(), output);
+		} else {
+			receive(address, builder.builder());
+		}
 		builder.release();
 	}
 
 	/**
 	 * 接收字符串，重载此方法实现字符串输出，默认行为输出控制台
-	 * 
+	 *
 	 * @param address 发送方地址
 	 * @param chars 接收的字节串
 	 */
@@ -62,22 +219,73 @@ public class LoggerReceiver implements Closeable {
 		System.out.append(chars);
 	}
 
-	private final Runnable RECEIVER = new Runnable() {
-		private final static ByteBuffer buffer = ByteBuffer.allocateDirect(1024);
+	/** 按水位输出重排的日志 */
+	private final Runnable REORDER = new Runnable() {
+		@Override
+		public void run() {
+			LoggerReorder r;
+			while ((r = reorder) != null && Thread.currentThread() == reorderer) {
+				r.poll(output);
+				LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(Math.max(1, r.getDelay() / 4)));
+			}
+		}
+	};
+
+	/** 接收线程，独立的通道、缓冲区和重组状态 */
+	private final class Worker extends Thread {
+
+		final DatagramChannel channel;
+		/** 最大数据报 */
+		final ByteBuffer buffer = ByteBuffer.allocateDirect(65536);
+		final LoggerFragments fragments = new LoggerFragments();
+		volatile long received, bytes, drops;
+
+		Worker(int port, boolean reuse, String name) throws IOException {
+			super(name);
+			setDaemon(true);
+			channel = DatagramChannel.open();
+			try {
+				channel.configureBlocking(true);
+				if (reuse) {
+					channel.setOption(StandardSocketOptions.SO_REUSEPORT, true);
+				}
+				// 较大的接收缓冲区以容纳突发的分段数据报
+				channel.setOption(StandardSocketOptions.SO_RCVBUF, 1 << 20);
+				channel.bind(new InetSocketAddress(port));
+			} catch (IOException | UnsupportedOperationException e) {
+				channel.close();
+				throw e;
+			}
+		}
 
 		@Override
 		public void run() {
 			SocketAddress address;
+			ByteBuffer record;
 			try {
 				while (channel.isOpen()) {
 					address = channel.receive(buffer.clear());
 					if (address != null) {
-						receive(address, buffer.flip());
+						buffer.flip();
+						received++;
+						bytes += buffer.remaining();
+						try {
+							if (LoggerFragments.isFrame(buffer)) {
+								record = fragments.accept(buffer);
+								if (record != null) {
+									receive(address, record);
+								}
+							} else {
+								receive(address, buffer);
+							}
+						} catch (RuntimeException e) {
+							drops++;
+						}
 					}
 				}
 			} catch (IOException e) {
 				return;
 			}
 		}
-	};
-}
\ No newline at end of file
+	}
+}
@@ -0,0 +1,289 @@
+/*
+ * Copyright © 2017-2025 重庆骄智科技有限公司.
+ * 本软件根据 Apache License 2.0 开源，详见 LICENSE 文件。
+ */
+package com.joyzl.logger;
+
+import java.net.SocketAddress;
+
+/**
+ * 日志重排，按日志时间戳排序多个发送方交错到达的日志
+ * <p>
+ * 日志暂存于有界最小堆，时间戳早于水位(当前时间减去延迟)的日志按时间戳顺序输出；
+ * 堆已满时提前输出最早的日志；时间戳早于已输出日志的迟到日志立即输出并计数。
+ * 时间戳从日志行首解析，支持 Logger 格式"18:21:22.032"和访问日志的毫秒时间戳"1749550882032"。
+ * </p>
+ *
+ * @author ZhangXi 2026年10月18日
+ */
+public class LoggerReorder {
+
+	/** 日志输出 */
+	public interface Output {
+		void output(SocketAddress address, CharSequence line);
+	}
+
+	/** 水位延迟(毫秒) */
+	private final long delay;
+	private final long[] times;
+	private final long[] orders;
+	private final SocketAddress[] addresses;
+	private final String[] lines;
+	private int size;
+	/** 到达顺序，时间戳相同时保持到达顺序 */
+	private long order;
+	/** 已输出的最大时间戳 */
+	private long last = Long.MIN_VALUE;
+	/** 最后加入的时间戳，用于无时间戳的行 */
+	private volatile long recent;
+	private volatile long late, forced, depth;
+
+	/**
+	 * @param delay 水位延迟(毫秒)，日志在此时间内等待更早的日志到达
+	 * @param capacity 最多暂存的日志数量
+	 */
+	public LoggerReorder(long delay, int capacity) {
+		this.delay = delay;
+		capacity = Math.max(1, capacity);
+		times = new long[capacity];
+		orders = new long[capacity];
+		addresses = new SocketAddress[capacity];
+		lines = new String[capacity];
+	}
+
+	/**
+	 * 加入多行日志，无时间戳的行(例如异常堆栈)合并到之前的日志
+	 */
+	public void offer(SocketAddress address, CharSequence chars, Output output) {
+		final long now = System.currentTimeMillis();
+		int begin = 0, index = 0;
+		long timestamp = Long.MIN_VALUE, t;
+		while (index < chars.length()) {
+			if (chars.charAt(index++) == '\n') {
+				if (index < chars.length()) {
+					t = timestamp(chars, index, now);
+					if (t >= 0) {
+						offer(timestamp, address, chars.subSequence(begin, index), output);
+						timestamp = t;
+						begin = index;
+					}
+				}
+			}
+		}
+		if (begin < chars.length()) {
+			offer(timestamp, address, chars.subSequence(begin, chars.length()), output);
+		}
+	}
+
+	private void offer(long timestamp, SocketAddress address, CharSequence record, Output output) {
+		if (timestamp == Long.MIN_VALUE) {
+			timestamp = timestamp(record, 0, System.currentTimeMillis());
+			if (timestamp < 0) {
+				// 无时间戳的行，例如分段的异常堆栈
+				timestamp = recent;
+			}
+		}
+		offer(timestamp, address, record.toString(), output);
+	}
+
+	/**
+	 * 加入单条日志
+	 */
+	public synchronized void offer(long timestamp, SocketAddress address, String line, Output output) {
+		recent = timestamp;
+		if (timestamp < last) {
+			late++;
+			output.output(address, line);
+		} else {
+			if (size >= times.length) {
+				// 堆已满，提前输出最早的日志
+				forced++;
+				output.output(addresses[0], lines[0]);
+				last = times[0];
+				remove();
+			}
+			add(timestamp, address, line);
+		}
+	}
+
+	/**
+	 * 输出时间戳早于水位的日志
+	 *
+	 * @return 输出的日志数量
+	 */
+	public int poll(Output output) {
+		return poll(System.currentTimeMillis() - delay, output);
+	}
+
+	/**
+	 * 输出所有暂存的日志
+	 */
+	public int drain(Output output) {
+		return poll(Long.MAX_VALUE, output);
+	}
+
+	/** 输出在锁内执行，确保多个线程输出时保持时间戳顺序 */
+	private synchronized int poll(long watermark, Output output) {
+		int count = 0;
+		while (size > 0 && times[0] <= watermark) {
+			output.output(addresses[0], lines[0]);
+			last = times[0];
+			remove();
+			count++;
+		}
+		return count;
+	}
+
+	private void add(long timestamp, SocketAddress address, String line) {
+		int index = size++;
+		int parent;
+		final long o = order++;
+		while (index > 0) {
+			parent = (index - 1) >>> 1;
+			if (less(timestamp, o, times[parent], orders[parent])) {
+				move(parent, index);
+				index = parent;
+			} else {
+				break;
+			}
+		}
+		set(index, timestamp, o, address, line);
+		if (size > depth) {
+			depth = size;
+		}
+	}
+
+	private void remove() {
+		final int end = --size;
+		final long timestamp = times[end];
+		final long o = orders[end];
+		final SocketAddress address = addresses[end];
+		final String line = lines[end];
+		addresses[end] = null;
+		lines[end] = null;
+		if (end == 0) {
+			return;
+		}
+
+		int index = 0, child;
+		while ((child = (index << 1) + 1) < end) {
+			if (child + 1 < end && less(times[child + 1], orders[child + 1], times[child], orders[child])) {
+				child++;
+			}
+			if (less(times[child], orders[child], timestamp, o)) {
+				move(child, index);
+				index = child;
+			} else {
+				break;
+			}
+		}
+		set(index, timestamp, o, address, line);
+	}
+
+	private static boolean less(long t1, long o1, long t2, long o2) {
+		return t1 < t2 || (t1 == t2 && o1 < o2);
+	}
+
+	private void move(int from, int to) {
+		times[to] = times[from];
+		orders[to] = orders[from];
+		addresses[to] = addresses[from];
+		lines[to] = lines[from];
+	}
+
+	private void set(int index, long timestamp, long o, SocketAddress address, String line) {
+		times[index] = timestamp;
+		orders[index] = o;
+		addresses[index] = address;
+		lines[index] = line;
+	}
+
+	/**
+	 * 从日志行首解析时间戳
+	 *
+	 * @param now 当前时间，用于补全仅有时分秒的时间的日期
+	 * @return 毫秒时间戳，-1 表示行首不是时间
+	 */
+	public static long timestamp(CharSequence chars, int index, long now) {
+		// 访问日志 "1749550882032 "
+		int end = index;
+		long value = 0;
+		char c;
+		while (end < chars.length() && end - index < 19) {
+			c = chars.charAt(end);
+			if (c >= '0' && c <= '9') {
+				value = value * 10 + (c - '0');
+				end++;
+			} else {
+				break;
+			}
+		}
+		if (end - index >= 12) {
+			return value;
+		}
+
+		// Logger 日志 "18:21:22.032"
+		if (chars.length() - index < LoggerBuilder.TIME_LENGTH) {
+			return -1;
+		}
+		if (chars.charAt(index + 2) != LoggerBuilder.COLON || chars.charAt(index + 5) != LoggerBuilder.COLON || chars.charAt(index + 8) != LoggerBuilder.POINT) {
+			return -1;
+		}
+		final int h = digits(chars, index, 2);
+		final int m = digits(chars, index + 3, 2);
+		final int s = digits(chars, index + 6, 2);
+		final int ms = digits(chars, index + 9, 3);
+		if (h < 0 || m < 0 || s < 0 || ms < 0) {
+			return -1;
+		}
+		final long time = h * (long) LoggerBuilder.HOUR_MILLISECOND + m * LoggerBuilder.MINUTES_MILLISECOND + s * LoggerBuilder.SECONDS_MILLISECOND + ms;
+		final long local = now + LoggerBuilder.OFFSET_SECONDS * 1000L;
+		final long today = local % LoggerBuilder.DAY_MILLISECOND;
+		long day = local - today;
+		// 跨越午夜时归属到最近的日期
+		if (time - today > LoggerBuilder.DAY_MILLISECOND / 2) {
+			day -= LoggerBuilder.DAY_MILLISECOND;
+		} else if (today - time > LoggerBuilder.DAY_MILLISECOND / 2) {
+			day += LoggerBuilder.DAY_MILLISECOND;
+		}
+		return day + time - LoggerBuilder.OFFSET_SECONDS * 1000L;
+	}
+
+	private static int digits(CharSequence chars, int index, int length) {
+		int value = 0;
+		char c;
+		for (int end = index + length; index < end; index++) {
+			c = chars.charAt(index);
+			if (c < '0' || c > '9') {
+				return -1;
+			}
+			value = value * 10 + (c - '0');
+		}
+		return value;
+	}
+
+	/** 水位延迟(毫秒) */
+	public long getDelay() {
+		return delay;
+	}
+
+	/** 迟到的日志数量，时间戳早于已输出的日志 */
+	public long getLate() {
+		return late;
+	}
+
+	/** 堆已满而提前输出的日志数量 */
+	public long getForced() {
+		return forced;
+	}
+
+	/** 当前暂存的日志数量 */
+	public synchronized int getDepth() {
+		return size;
+	}
+
+	/** 最大暂存的日志数量 */
+	public long getMaxDepth() {
+		return depth;
+	}
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright © 2017-2025 重庆骄智科技有限公司.
+ * 本软件根据 Apache License 2.0 开源，详见 LICENSE 文件。
+ */
+package com.joyzl.logger;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 有界环形队列，生产者以 CAS 占用槽位后写入并发布；槽位预分配，入队和出队均不产生对象分配
+ * <p>
+ * 队列已满时按溢出策略处理：BLOCK 等待消费者，DROP_NEWEST 丢弃新元素，
+ * DROP_OLDEST 丢弃最早的元素，SAMPLE 在队列接近满时仅保留部分新元素。
+ * </p>
+ *
+ * @author ZhangXi 2026年10月18日
+ */
+public class LoggerRing<T> {
+
+	/** 溢出策略：等待消费者 */
+	public final static int BLOCK = 0;
+	/** 溢出策略：丢弃新元素 */
+	public final static int DROP_NEWEST = 1;
+	/** 溢出策略：丢弃最早的元素 */
+	public final static int DROP_OLDEST = 2;
+	/** 溢出策略：队列超过3/4时每8个新元素保留1个，已满时丢弃 */
+	public final static int SAMPLE = 3;
+	/** 采样比例 */
+	final static int SAMPLE_RATE = 8;
+
+	/** 槽位 */
+	private final Object[] items;
+	/** 槽位序号，用于判断槽位可写或可读 */
+	private final AtomicLongArray sequences;
+	/** 生产者位置 */
+	private final AtomicLong tail = new AtomicLong();
+	/** 消费者位置 */
+	private final AtomicLong head = new AtomicLong();
+	private final AtomicLong drops = new AtomicLong();
+	private final AtomicLong samples = new AtomicLong();
+	private final int mask;
+	private final int overflow;
+	/** 队列长度的最高值 */
+	private volatile int water;
+
+	/**
+	 * @param capacity 容量，将向上调整为2的幂
+	 */
+	public LoggerRing(int capacity) {
+		this(capacity, BLOCK);
+	}
+
+	/**
+	 * @param capacity 容量，将向上调整为2的幂
+	 * @param overflow 溢出策略 BLOCK / DROP_NEWEST / DROP_OLDEST / SAMPLE
+	 */
+	public LoggerRing(int capacity, int overflow) {
+		if (capacity < 2) {
+			capacity = 2;
+		} else {
+			capacity = Integer.highestOneBit(capacity - 1) << 1;
+		}
+		items = new Object[capacity];
+		sequences = new AtomicLongArray(capacity);
+		for (int index = 0; index < capacity; index++) {
+			sequences.set(index, index);
+		}
+		mask = capacity - 1;
+		this.overflow = overflow;
+	}
+
+	/**
+	 * 入队，可由多个线程同时调用
+	 *
+	 * @return false 队列已满
+	 */
+	public boolean offer(T item) {
+		long t, s;
+		int i;
+		while (true) {
+			t = tail.get();
+			i = (int) (t & mask);
+			s = sequences.get(i);
+			if (s == t) {
+				// 占用槽位
+				if (tail.compareAndSet(t, t + 1)) {
+					items[i] = item;
+					// 发布槽位
+					sequences.set(i, t + 1);
+					water(t + 1);
+					return true;
+				}
+			} else if (s < t) {
+				return false;
+			}
+		}
+	}
+
+	/**
+	 * 按溢出策略入队，可由多个线程同时调用
+	 *
+	 * @param consumer 队列已满等待时唤醒的消费者线程
+	 * @return 被丢弃的元素，可能为新元素或最早的元素，调用者可回收；null 表示未丢弃
+	 */
+	public T put(T item, Thread consumer) {
+		switch (overflow) {
+			case DROP_NEWEST:
+				if (offer(item)) {
+					return null;
+				}
+				drops.incrementAndGet();
+				return item;
+			case DROP_OLDEST:
+				T oldest = null;
+				while (!offer(item)) {
+					if (oldest != null) {
+						// 多个生产者同时挤出时，仅返回最后挤出的元素，其余丢弃由垃圾回收
+						drops.incrementAndGet();
+					}
+					oldest = poll();
+				}
+				if (oldest != null) {
+					drops.incrementAndGet();
+				}
+				return oldest;
+			case SAMPLE:
+				if (size() > (mask + 1) - ((mask + 1) >> 2)) {
+					if (samples.getAndIncrement() % SAMPLE_RATE != 0) {
+						drops.incrementAndGet();
+						return item;
+					}
+				}
+				if (offer(item)) {
+					return null;
+				}
+				drops.incrementAndGet();
+				return item;
+			default:
+				while (!offer(item)) {
+					// 队列已满，等待消费者
+					LockSupport.unpark(consumer);
+					Thread.yield();
+				}
+				return null;
+		}
+	}
+
+	/**
+	 * 出队，通常由单个消费者线程调用；DROP_OLDEST 策略时生产者也将出队
+	 *
+	 * @return null 队列为空
+	 */
+	@SuppressWarnings("unchecked")
+	public T poll() {
+		long h, s;
+		int i;
+		while (true) {
+			h = head.get();
+			i = (int) (h & mask);
+			s = sequences.get(i);
+			if (s == h + 1) {
+				if (head.compareAndSet(h, h + 1)) {
+					final T item = (T) items[i];
+					items[i] = null;
+					sequences.set(i, h + mask + 1);
+					return item;
+				}
+			} else if (s < h + 1) {
+				return null;
+			}
+		}
+	}
+
+	private void water(long t) {
+		final int size = (int) (t - head.get());
+		if (size > water) {
+			// 仅用于统计，并发更新可能略低于实际最高值
+			water = size;
+		}
+	}
+
+	/** 队列为空 */
+	public boolean isEmpty() {
+		final long h = head.get();
+		return sequences.get((int) (h & mask)) != h + 1;
+	}
+
+	/** 队列中的元素数量 */
+	public int size() {
+		final long h = head.get();
+		return (int) Math.max(0, Math.min(tail.get() - h, mask + 1));
+	}
+
+	/** 队列容量 */
+	public int capacity() {
+		return mask + 1;
+	}
+
+	/** 溢出策略 */
+	public int overflow() {
+		return overflow;
+	}
+
+	/** 因溢出而丢弃的元素数量 */
+	public long drops() {
+		return drops.get();
+	}
+
+	/** 队列长度的最高值 */
+	public int highWater() {
+		return water;
+	}
+}
@@ -34,7 +34,20 @@ public final class LoggerService {
 	private final static Thread SHUTDOWN = new Thread("LOGGER SHUTDOWN") {
 		@Override
 		public void run() {
+			// 首先关闭异步写入线程，确保队列中的日志在文件关闭之前输出
 			for (Closeable item : CLOSEABLES) {
+				if (item instanceof LoggerWriter) {
+					try {
+						item.close();
+					} catch (IOException e) {
+						continue;
+					}
+				}
+			}
+			for (Closeable item : CLOSEABLES) {
+				if (item instanceof LoggerWriter) {
+					continue;
+				}
 				try {
 					item.close();
 				} catch (IOException e) {
@@ -0,0 +1,317 @@
+/*
+ * Copyright © 2017-2025 重庆骄智科技有限公司.
+ * 本软件根据 Apache License 2.0 开源，详见 LICENSE 文件。
+ */
+package com.joyzl.logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 输出日志到网络(TCP)，每条日志以4字节长度前缀分帧
+ * <p>
+ * 调用线程仅将日志编码到堆外环形暂存区，由独立的网络线程发送，不会因网络阻塞；
+ * 接收端确认已处理的累计字节数量后才释放暂存区，连接断开期间日志保留在暂存区，
+ * 网络线程按退避间隔自动重连后从最后确认的位置继续发送，接收端可能收到重复日志；
+ * 暂存区已满时丢弃新日志并计数。
+ * </p>
+ *
+ * @author ZhangXi 2026年10月18日
+ */
+public class LoggerTCP extends LoggerWriter<LoggerBuilder> {
+
+	/** 默认暂存区容量(字节) */
+	final static int CAPACITY = 4 * 1024 * 1024;
+	/** 重连最短间隔(毫秒) */
+	final static int BACKOFF_MIN = 100;
+	/** 重连最长间隔(毫秒) */
+	final static int BACKOFF_MAX = 10000;
+	/** 连接超时(毫秒) */
+	final static int TIMEOUT = 3000;
+
+	private final InetSocketAddress address;
+	private final ReentrantLock lock = new ReentrantLock();
+	private final AtomicLong drops = new AtomicLong();
+	private final AtomicLong connects = new AtomicLong();
+	/** 环形暂存区 */
+	private final ByteBuffer ring;
+	/** 环形暂存区的发送视图 */
+	private final ByteBuffer[] sending;
+	/** 单条日志编码 */
+	private ByteBuffer record = ByteBuffer.allocateDirect(4096);
+	/** 接收端确认位置和写入位置，单调递增 */
+	private volatile long head;
+	private long tail;
+	/** 以下仅网络线程访问：已发送位置，当前连接的起始位置 */
+	private long sent, base;
+	private final ByteBuffer acks = ByteBuffer.allocate(8);
+	private SocketChannel channel;
+	private SelectionKey key;
+	private volatile Selector selector;
+	private volatile boolean waiting, end, abort;
+
+	public LoggerTCP(String host, int port) {
+		this(host, port, CAPACITY);
+	}
+
+	/**
+	 * @param capacity 暂存区容量(字节)
+	 */
+	public LoggerTCP(String host, int port, int capacity) {
+		super("LOGGER TCP");
+		address = new InetSocketAddress(host, port);
+		ring = ByteBuffer.allocateDirect(capacity);
+		sending = new ByteBuffer[] { ring.duplicate(), ring.duplicate() };
+		setDaemon(true);
+		LoggerService.register(this);
+		start();
+	}
+
+	@Override
+	public void put(LoggerBuilder builder) {
+		output(builder);
+	}
+
+	/**
+	 * 输出日志，仅编码到暂存区，暂存区已满时丢弃
+	 */
+	public void output(LoggerBuilder builder) {
+		lock.lock();
+		try {
+			record.clear();
+			while (!builder.encodeUTF8(record)) {
+				final ByteBuffer larger = ByteBuffer.allocateDirect(record.capacity() * 2);
+				larger.put(record.flip());
+				record = larger;
+			}
+			record.flip();
+
+			final int size = record.remaining() + 4;
+			if (size > ring.capacity() - (tail - head)) {
+				drops.incrementAndGet();
+				return;
+			}
+			put(record.remaining() >>> 24);
+			put(record.remaining() >>> 16);
+			put(record.remaining() >>> 8);
+			put(record.remaining());
+			int index = (int) (tail % ring.capacity());
+			while (record.hasRemaining()) {
+				ring.put(index, record.get());
+				if (++index == ring.capacity()) {
+					index = 0;
+				}
+			}
+			tail += size - 4;
+		} finally {
+			lock.unlock();
+		}
+		wakeup();
+	}
+
+	private void wakeup() {
+		if (waiting) {
+			final Selector s = selector;
+			if (s != null) {
+				s.wakeup();
+			}
+		} else {
+			LockSupport.unpark(this);
+		}
+	}
+
+	private void put(int value) {
+		ring.put((int) (tail++ % ring.capacity()), (byte) value);
+	}
+
+	@Override
+	public void run() {
+		int backoff = BACKOFF_MIN;
+		long t;
+		try (Selector selector = Selector.open()) {
+			this.selector = selector;
+			while (!abort) {
+				t = tail();
+				if (channel == null) {
+					if (head == t) {
+						if (end) {
+							break;
+						}
+						LockSupport.park(this);
+						continue;
+					}
+					try {
+						connect(selector);
+						backoff = BACKOFF_MIN;
+					} catch (IOException e) {
+						disconnect();
+						if (end) {
+							break;
+						}
+						// 退避后重连，期间日志保留在暂存区
+						LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(backoff));
+						backoff = Math.min(backoff * 2, BACKOFF_MAX);
+					}
+					continue;
+				}
+
+				try {
+					if (sent < t) {
+						sent += send(sent, t);
+					}
+					acknowledge();
+					if (end && head == tail()) {
+						break;
+					}
+					if (sent < t) {
+						// 发送缓冲区已满，等待可写
+						key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+						selector.select(BACKOFF_MIN);
+					} else {
+						// 等待新日志或确认
+						key.interestOps(SelectionKey.OP_READ);
+						waiting = true;
+						if (sent == tail()) {
+							selector.select(BACKOFF_MIN);
+						}
+						waiting = false;
+					}
+					selector.selectedKeys().clear();
+				} catch (IOException e) {
+					// 连接断开，未确认的日志将在重连后重发
+					disconnect();
+				}
+			}
+		} catch (IOException e) {
+			// 无法创建选择器
+		} finally {
+			disconnect();
+		}
+	}
+
+	private void connect(Selector selector) throws IOException {
+		channel = SocketChannel.open();
+		channel.socket().connect(address, TIMEOUT);
+		channel.socket().setTcpNoDelay(true);
+		channel.configureBlocking(false);
+		key = channel.register(selector, SelectionKey.OP_READ);
+		acks.clear();
+		// 从最后确认的位置重发
+		base = sent = head;
+		connects.incrementAndGet();
+	}
+
+	/** 读取接收端确认的累计字节数量并释放暂存区 */
+	private void acknowledge() throws IOException {
+		while (true) {
+			final int n = channel.read(acks);
+			if (n < 0) {
+				throw new IOException("closed");
+			}
+			if (acks.hasRemaining()) {
+				return;
+			}
+			final long value = base + acks.getLong(0);
+			acks.clear();
+			lock.lock();
+			try {
+				if (value > head && value <= tail) {
+					head = value;
+				}
+			} finally {
+				lock.unlock();
+			}
+		}
+	}
+
+	private long tail() {
+		lock.lock();
+		try {
+			return tail;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/** 聚集写入暂存区中 [h,t) 的日志，跨越环形边界时分为两段，返回写入的字节数量 */
+	private long send(long h, long t) throws IOException {
+		final int begin = (int) (h % ring.capacity());
+		final int length = (int) (t - h);
+		final int count;
+		if (begin + length <= ring.capacity()) {
+			sending[0].limit(begin + length).position(begin);
+			count = 1;
+		} else {
+			sending[0].limit(ring.capacity()).position(begin);
+			sending[1].limit(begin + length - ring.capacity()).position(0);
+			count = 2;
+		}
+		return channel.write(sending, 0, count);
+	}
+
+	private void disconnect() {
+		if (channel != null) {
+			try {
+				channel.close();
+			} catch (IOException e) {
+				// 忽略关闭错误
+			}
+			channel = null;
+			key = null;
+		}
+	}
+
+	/** 暂存区已满而丢弃的日志数量 */
+	public long getDrops() {
+		return drops.get();
+	}
+
+	/** 建立连接的次数 */
+	public long getConnects() {
+		return connects.get();
+	}
+
+	/** 暂存区中等待发送或确认的字节数量 */
+	public long getPending() {
+		lock.lock();
+		try {
+			return tail - head;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/** 目标地址 */
+	public InetSocketAddress getAddress() {
+		return address;
+	}
+
+	@Override
+	public void close() throws IOException {
+		LoggerService.remove(this);
+		end = true;
+		try {
+			// 尽量发送剩余日志，目标不可达或未确认时不会无限等待
+			LockSupport.unpark(this);
+			wakeup();
+			join(TIMEOUT);
+			if (isAlive()) {
+				abort = true;
+				LockSupport.unpark(this);
+				wakeup();
+				join();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright © 2017-2025 重庆骄智科技有限公司.
+ * 本软件根据 Apache License 2.0 开源，详见 LICENSE 文件。
+ */
+package com.joyzl.logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 日志网络接收(TCP)，接收 LoggerTCP 发送的4字节长度前缀分帧日志，
+ * 处理后以8字节回复当前连接累计处理的字节数量作为确认；
+ * 每个连接由独立的线程接收，重载的 receive 方法将被多个线程同时调用
+ *
+ * @author ZhangXi 2026年10月18日
+ */
+public class LoggerTCPReceiver implements Closeable {
+
+	/** 单条日志最大长度 */
+	final static int MAX_FRAME = 16 * 1024 * 1024;
+
+	private final ServerSocketChannel server;
+	private final Set<SocketChannel> connections = ConcurrentHashMap.newKeySet();
+	private final AtomicLong received = new AtomicLong();
+	private final Thread thread;
+
+	public LoggerTCPReceiver(int port) throws IOException {
+		server = ServerSocketChannel.open();
+		server.bind(new InetSocketAddress(port));
+
+		thread = new Thread(ACCEPTOR, "LOGGER TCP ACCEPTOR");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (server.isOpen()) {
+			server.close();
+			thread.interrupt();
+		}
+		for (SocketChannel channel : connections) {
+			channel.close();
+		}
+	}
+
+	/** 接收的日志数量 */
+	public long getReceived() {
+		return received.get();
+	}
+
+	/** 当前连接数量 */
+	public int getConnections() {
+		return connections.size();
+	}
+
+	/**
+	 * 接收字节串，重载此方法实现字节解码，默认行为解码为UTF8字符串
+	 *
+	 * @param address 发送方地址
+	 * @param buffer 单条日志的字节串
+	 */
+	protected void receive(SocketAddress address, ByteBuffer buffer) {
+		final LoggerBuilder builder = LoggerBuilder.instance();
+		builder.decodeUTF8(buffer);
+		receive(address, builder.builder());
+		builder.release();
+	}
+
+	/**
+	 * 接收字符串，重载此方法实现字符串输出，默认行为输出控制台
+	 *
+	 * @param address 发送方地址
+	 * @param chars 单条日志
+	 */
+	protected void receive(SocketAddress address, CharSequence chars) {
+		System.out.append(chars);
+	}
+
+	private final Runnable ACCEPTOR = new Runnable() {
+		@Override
+		public void run() {
+			SocketChannel channel;
+			Thread connection;
+			try {
+				while (server.isOpen()) {
+					channel = server.accept();
+					connections.add(channel);
+					connection = new Connection(channel);
+					connection.setDaemon(true);
+					connection.start();
+				}
+			} catch (IOException e) {
+				return;
+			}
+		}
+	};
+
+	/** 连接接收线程 */
+	private final class Connection extends Thread {
+
+		private final SocketChannel channel;
+		private ByteBuffer buffer = ByteBuffer.allocateDirect(65536);
+		private final ByteBuffer ack = ByteBuffer.allocate(8);
+		/** 累计处理和已确认的字节数量 */
+		private long consumed, acked;
+
+		Connection(SocketChannel channel) {
+			super("LOGGER TCP RECEIVER");
+			this.channel = channel;
+		}
+
+		@Override
+		public void run() {
+			try {
+				final SocketAddress address = channel.getRemoteAddress();
+				int length;
+				while (channel.isOpen()) {
+					// 缓冲区中可能包含多个完整的帧
+					if (channel.read(buffer) < 0) {
+						break;
+					}
+					buffer.flip();
+					while (buffer.remaining() >= 4) {
+						length = buffer.getInt(buffer.position());
+						if (length < 0 || length > MAX_FRAME) {
+							// 无效帧，断开连接
+							return;
+						}
+						if (buffer.remaining() < length + 4) {
+							if (length + 4 > buffer.capacity()) {
+								final ByteBuffer larger = ByteBuffer.allocateDirect(length + 4);
+								larger.put(buffer);
+								buffer = larger.flip();
+							}
+							break;
+						}
+						buffer.position(buffer.position() + 4);
+						final int limit = buffer.limit();
+						buffer.limit(buffer.position() + length);
+						received.incrementAndGet();
+						receive(address, buffer);
+						buffer.position(buffer.limit());
+						buffer.limit(limit);
+						consumed += length + 4;
+					}
+					buffer.compact();
+					if (consumed > acked) {
+						acked = consumed;
+						ack.clear();
+						ack.putLong(consumed).flip();
+						while (ack.hasRemaining()) {
+							channel.write(ack);
+						}
+					}
+				}
+			} catch (IOException e) {
+				// 连接断开
+			} finally {
+				connections.remove(channel);
+				try {
+					channel.close();
+				} catch (IOException e) {
+					// 忽略关闭错误
+				}
+			}
+		}
+	}
+}
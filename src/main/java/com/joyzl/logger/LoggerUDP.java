@@ -7,36 +7,267 @@ package com.joyzl.logger;
 import java.io.Closeable;
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.net.PortUnreachableException;
 import java.nio.ByteBuffer;
 import java.nio.channels.DatagramChannel;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * 输出日志到网络
- * 
+ * <p>
+ * 默认每条日志按1024字节分段发送数据报；指定负载大小后启用合并发送，
+ * 多条完整日志合并为单个数据报，达到负载大小或等待超时后发送，
+ * 仅当单条日志超过负载大小时才会跨数据报分段。
+ * </p>
+ * <p>
+ * 启用分帧后每个数据报以帧头开始，接收端据此重组分段的日志并统计丢失的数据报：
+ *
+ * <pre>
+ * FRAME(1) VERSION(1) SENDER(4) SEQUENCE(4) INDEX(2) COUNT(2) PAYLOAD
+ * </pre>
+ *
+ * FRAME 固定为 0xFF，不会出现在UTF-8字符中，用于区分未分帧的数据报；
+ * SEQUENCE 为发送方的消息序号，同一日志的分段序号相同；INDEX 和 COUNT 为分段索引和分段数量。
+ * </p>
+ *
  * @author ZhangXi 2025年6月10日
  */
 public class LoggerUDP implements Closeable {
 
+	/** 默认数据报大小 */
+	final static int DATAGRAM = 1024;
+	/** 帧标记 */
+	final static byte FRAME = (byte) 0xFF;
+	/** 帧版本 */
+	final static byte VERSION = 1;
+	/** 帧头长度 */
+	final static int HEADER = 14;
+
 	private final DatagramChannel channel;
+	private final ReentrantLock lock = new ReentrantLock();
+	private final AtomicLong drops = new AtomicLong();
+	/** 数据报 */
+	private final ByteBuffer buffer;
+	/** 单条日志编码 */
+	private ByteBuffer record = ByteBuffer.allocateDirect(4096);
+	/** 合并发送的数据报负载大小，0 不合并 */
+	private final int payload;
+	/** 合并发送的最长等待(毫秒)，0 仅在负载写满时发送 */
+	private final int linger;
+	/** 分帧 */
+	private final boolean frame;
+	/** 发送方标识 */
+	private final int sender;
+	private final Thread timer;
+	/** 消息序号 */
+	private int sequence;
+	private volatile boolean end;
 
 	public LoggerUDP(String host, int port) throws IOException {
+		this(host, port, 0, 0, false);
+	}
+
+	/**
+	 * @param payload 合并发送的数据报负载大小，例如 1400 或 8972，0 不合并
+	 * @param linger 合并发送的最长等待(毫秒)，0 不等待，仅在负载写满、flush 或关闭时发送
+	 */
+	public LoggerUDP(String host, int port, int payload, int linger) throws IOException {
+		this(host, port, payload, linger, false);
+	}
+
+	/**
+	 * @param payload 合并发送的数据报负载大小，例如 1400 或 8972，0 不合并
+	 * @param linger 合并发送的最长等待(毫秒)，0 不等待，仅在负载写满、flush 或关闭时发送
+	 * @param frame 分帧，接收端可重组超长日志并统计丢失
+	 */
+	public LoggerUDP(String host, int port, int payload, int linger, boolean frame) throws IOException {
+		this.payload = payload;
+		this.linger = linger;
+		this.frame = frame;
+		sender = new Random().nextInt();
+		buffer = ByteBuffer.allocateDirect(payload > 0 ? payload : DATAGRAM);
+
 		channel = DatagramChannel.open();
 		channel.configureBlocking(false);
 		channel.connect(new InetSocketAddress(host, port));
 		LoggerService.register(this);
+
+		if (payload > 0 && linger > 0) {
+			timer = new Thread(LINGER, "LOGGER UDP");
+			timer.setDaemon(true);
+			timer.start();
+		} else {
+			timer = null;
+		}
 	}
 
+	/**
+	 * 直接发送字节串
+	 */
 	public void output(ByteBuffer buffer) throws IOException {
-		while (buffer.hasRemaining()) {
-			channel.write(buffer);
+		send(buffer);
+	}
+
+	/**
+	 * 输出日志，合并发送时可能暂存等待
+	 */
+	public void output(LoggerBuilder builder) throws IOException {
+		lock.lock();
+		try {
+			encode(builder);
+			if (payload > 0) {
+				if (record.remaining() > buffer.capacity() - (frame ? HEADER : 0)) {
+					// 单条日志超过负载大小
+					flush();
+					fragments();
+				} else {
+					if (record.remaining() > buffer.remaining()) {
+						flush();
+					}
+					if (buffer.position() == 0 && frame) {
+						header(buffer, ++sequence, 0, 1);
+					}
+					buffer.put(record);
+					if (!buffer.hasRemaining()) {
+						flush();
+					}
+				}
+			} else {
+				fragments();
+			}
+		} finally {
+			lock.unlock();
 		}
 	}
 
+	/** 编码日志为完整的UTF-8字节串 */
+	private void encode(LoggerBuilder builder) {
+		record.clear();
+		while (!builder.encodeUTF8(record)) {
+			final ByteBuffer larger = ByteBuffer.allocateDirect(record.capacity() * 2);
+			larger.put(record.flip());
+			record = larger;
+		}
+		record.flip();
+	}
+
+	/** 分段发送单条日志 */
+	private void fragments() throws IOException {
+		final int size = buffer.capacity() - (frame ? HEADER : 0);
+		final int count = (record.remaining() + size - 1) / size;
+		sequence++;
+
+		int index = 0, limit;
+		while (record.hasRemaining()) {
+			buffer.clear();
+			limit = Math.min(record.limit(), record.position() + size);
+			if (frame) {
+				header(buffer, sequence, index++, count);
+			} else {
+				// 未分帧时在字符边界分段，接收端可独立解码
+				while (limit < record.limit() && limit > record.position() + 1 && (record.get(limit) & 0xC0) == 0x80) {
+					limit--;
+				}
+			}
+			while (record.position() < limit) {
+				buffer.put(record.get());
+			}
+			send(buffer.flip());
+		}
+		buffer.clear();
+	}
+
+	/**
+	 * 发送暂存的日志
+	 */
+	public void flush() throws IOException {
+		lock.lock();
+		try {
+			if (buffer.position() > (frame ? HEADER : 0)) {
+				send(buffer.flip());
+			}
+			buffer.clear();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void header(ByteBuffer buffer, int sequence, int index, int count) {
+		buffer.put(FRAME);
+		buffer.put(VERSION);
+		buffer.putInt(sender);
+		buffer.putInt(sequence);
+		buffer.putShort((short) index);
+		buffer.putShort((short) count);
+	}
+
+	private void send(ByteBuffer buffer) throws IOException {
+		try {
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		} catch (PortUnreachableException e) {
+			// 接收端未启动，丢弃
+			buffer.position(buffer.limit());
+			drops.incrementAndGet();
+		}
+	}
+
+	/** 接收端不可达而丢弃的数据报数量 */
+	public long getDrops() {
+		return drops.get();
+	}
+
+	/** 合并发送的数据报负载大小，0 不合并 */
+	public int getPayload() {
+		return payload;
+	}
+
+	/** 合并发送的最长等待(毫秒)，0 仅在负载写满时发送 */
+	public int getLinger() {
+		return linger;
+	}
+
+	/** 分帧 */
+	public boolean isFrame() {
+		return frame;
+	}
+
+	/** 发送方标识，分帧时随数据报发送 */
+	public int getSender() {
+		return sender;
+	}
+
 	@Override
 	public void close() throws IOException {
 		LoggerService.remove(this);
 		if (channel != null && channel.isOpen()) {
+			if (timer != null) {
+				// 不能中断，中断将关闭通道
+				end = true;
+				LockSupport.unpark(timer);
+			}
+			flush();
 			channel.close();
 		}
 	}
-}
\ No newline at end of file
+
+	private final Runnable LINGER = new Runnable() {
+		@Override
+		public void run() {
+			final long nanos = TimeUnit.MILLISECONDS.toNanos(linger);
+			while (!end) {
+				LockSupport.parkNanos(this, nanos);
+				try {
+					flush();
+				} catch (IOException e) {
+					continue;
+				}
+			}
+		}
+	};
+}
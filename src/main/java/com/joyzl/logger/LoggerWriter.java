@@ -5,17 +5,115 @@
 package com.joyzl.logger;
 
 import java.io.Closeable;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * 异步日志写入
- * 
+ * <p>
+ * 写入线程无待写数据时按等待策略等待：BLOCKING 阻塞直至生产者唤醒；
+ * SPIN_YIELD 自旋后让出处理器；PARK 定时休眠；BUSY_SPIN 持续自旋，适用于独占的处理器核心。
+ * 仅 BLOCKING 策略且写入线程已阻塞时生产者才需要唤醒，其余情况跳过唤醒。
+ * </p>
+ *
  * @author ZhangXi 2025年6月10日
  */
 public abstract class LoggerWriter<T> extends Thread implements Closeable {
 
+	/** 等待策略：阻塞，由生产者唤醒 */
+	public final static int BLOCKING = 0;
+	/** 等待策略：自旋后让出处理器 */
+	public final static int SPIN_YIELD = 1;
+	/** 等待策略：定时休眠 */
+	public final static int PARK = 2;
+	/** 等待策略：持续自旋 */
+	public final static int BUSY_SPIN = 3;
+
+	/** SPIN_YIELD 自旋次数 */
+	final static int SPINS = 100;
+	/** PARK 休眠时间(纳秒) */
+	final static long PARK_NANOS = 50_000;
+
+	private volatile int strategy;
+	/** 写入线程将要阻塞或已阻塞 */
+	private volatile boolean waiting;
+	/** 连续等待次数，仅写入线程访问 */
+	private int spins;
+
 	public LoggerWriter(String name) {
+		this(name, BLOCKING);
+	}
+
+	/**
+	 * @param strategy 等待策略 BLOCKING / SPIN_YIELD / PARK / BUSY_SPIN
+	 */
+	public LoggerWriter(String name, int strategy) {
 		super(name);
+		this.strategy = strategy;
 	}
 
 	public abstract void put(T t);
-}
\ No newline at end of file
+
+	/**
+	 * 是否有待写数据，写入线程阻塞之前再次检查，避免错过生产者的唤醒；
+	 * 使用 {@link #idle()} 的子类应重载此方法
+	 */
+	protected boolean pending() {
+		return false;
+	}
+
+	/**
+	 * 写入线程无待写数据时调用，按等待策略等待
+	 */
+	protected final void idle() {
+		switch (strategy) {
+			case BUSY_SPIN:
+				Thread.onSpinWait();
+				break;
+			case SPIN_YIELD:
+				if (spins < SPINS) {
+					spins++;
+					Thread.onSpinWait();
+				} else {
+					Thread.yield();
+				}
+				break;
+			case PARK:
+				LockSupport.parkNanos(this, PARK_NANOS);
+				break;
+			default:
+				waiting = true;
+				if (!pending()) {
+					LockSupport.park(this);
+				}
+				waiting = false;
+		}
+	}
+
+	/**
+	 * 写入线程处理数据后调用，重置自旋计数
+	 */
+	protected final void busy() {
+		spins = 0;
+	}
+
+	/**
+	 * 生产者发布数据后调用，仅当写入线程可能阻塞时唤醒
+	 */
+	public final void signal() {
+		if (waiting) {
+			LockSupport.unpark(this);
+		}
+	}
+
+	/** 设置等待策略 BLOCKING / SPIN_YIELD / PARK / BUSY_SPIN */
+	public void setWaitStrategy(int value) {
+		strategy = value;
+		// 可能正在阻塞
+		LockSupport.unpark(this);
+	}
+
+	/** 等待策略 */
+	public int getWaitStrategy() {
+		return strategy;
+	}
+}
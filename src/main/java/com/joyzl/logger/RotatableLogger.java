@@ -6,24 +6,76 @@ package com.joyzl.logger;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.GatheringByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
-import java.time.ZoneOffset;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
-import java.time.temporal.ChronoUnit;
-import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
 
 /**
- * 可轮换的日志，每天产生单个日志文件，文件名自动按日期轮换"access-20241202.log"
+ * 可轮换的日志，默认每天产生单个日志文件，文件名自动按日期轮换"access-20241202.log"；
+ * 可按小时或分钟周期轮换"access-20241202-1300.log"，可限制文件大小以序号续写"access-20241202-003.log"；
+ * 缓存多个已打开的文件通道，零点前后交错到达的日志直接写入对应文件而无须反复关闭和打开；
+ * 轮换线程在当前文件结束前预先打开下一文件，并在写入线程之外刷新和关闭不再使用的文件
  * 
  * @author ZhangXi 2025年6月9日
  */
 public abstract class RotatableLogger implements Closeable {
 
+	/** 轮换周期：每天 */
+	public final static int DAILY = 24 * 60;
+	/** 轮换周期：每小时 */
+	public final static int HOURLY = 60;
+	/** 默认内存映射窗口(字节) */
+	public final static int WINDOW = 64 * 1024 * 1024;
+
+	/** 缓存的文件通道数量：当日、前日和达到大小限制待关闭的文件 */
+	final static int HANDLES = 3;
+	/** 文件通道空闲关闭时间(毫秒)，以日志时间戳计 */
+	final static long IDLE = 60000;
+
+	/** 当前文件结束前预先打开下一文件的提前量(毫秒) */
+	final static long PREROTATE = 5000;
+	/** 轮换线程检查间隔(毫秒) */
+	final static long INTERVAL = 1000;
+
+	/** 需要预先轮换的日志 */
+	private final static Set<RotatableLogger> ROTATABLES = ConcurrentHashMap.newKeySet();
+	/** 待刷新后关闭的文件通道 */
+	private final static Queue<GatheringByteChannel> RETIRES = new ConcurrentLinkedQueue<>();
+	private static Thread ROTATOR;
+
+	/** 已打开的文件通道，仅写入线程访问 */
+	private final Handle[] handles = new Handle[HANDLES];
+	private Handle current;
+	/** 最近的日志时间戳和空闲检查时间戳 */
+	private long latest, checked;
+	/** 当前文件的结束时间戳 */
+	private volatile long boundary = Long.MAX_VALUE;
+	/** 预先打开的下一文件 */
+	private final AtomicReference<Handle> prepared = new AtomicReference<>();
+	private volatile boolean prerotate = true, closed;
+	/** 轮换周期(分钟)和单个文件最大字节数量 */
+	private volatile int period = DAILY;
+	private volatile long size;
+	/** 内存映射窗口(字节)，0 不使用内存映射 */
+	private volatile int mapped;
+
 	/** 用户指定的日志路径，可能是文件或文件夹 */
 	private final String file;
 	/** 从用户路径分解的日志目录，文件名，扩展名 */
@@ -81,117 +133,498 @@ public abstract class RotatableLogger implements Closeable {
 	}
 
 	/**
-	 * 根据指定时间戳切换文件
+	 * 设置轮换策略，可组合使用
+	 *
+	 * @param minutes 轮换周期(分钟)，应能整除一天的分钟数，如 DAILY / HOURLY / 30 / 15
+	 * @param size 单个文件最大字节数量，超过时以序号后缀续写"access-20241202-003.log"，0 不限制
+	 */
+	public void setRotation(int minutes, long size) {
+		if (minutes <= 0 || minutes >= DAILY) {
+			minutes = DAILY;
+		} else if (DAILY % minutes != 0) {
+			throw new IllegalArgumentException("轮换周期应能整除一天的分钟数:" + minutes);
+		}
+		period = minutes;
+		this.size = Math.max(0, size);
+	}
+
+	/** 轮换周期(分钟) */
+	public int getRotatePeriod() {
+		return period;
+	}
+
+	/** 单个文件最大字节数量，0 不限制 */
+	public long getRotateSize() {
+		return size;
+	}
+
+	/**
+	 * 设置内存映射追加模式，之后打开的文件按窗口映射，写入仅复制到映射内存，关闭时截断至实际长度
+	 *
+	 * @param window 映射窗口(字节)，如 {@link #WINDOW}，0 使用普通的追加写入
+	 */
+	public void setMapped(int window) {
+		mapped = Math.max(0, window);
+	}
+
+	/** 内存映射窗口(字节)，0 未使用内存映射 */
+	public int getMapped() {
+		return mapped;
+	}
+
+	/** 时间戳所在时区的偏移(毫秒) */
+	private static long offset(long timestamp) {
+		return ZoneId.systemDefault().getRules().getOffset(Instant.ofEpochMilli(timestamp)).getTotalSeconds() * 1000L;
+	}
+
+	/**
+	 * 根据指定时间戳切换文件，返回所在周期的首个文件
 	 */
 	public RotateFile rotate(long timestamp) {
-		// 轮换日志文件，将同一天的日志写入相同文件
-		final Instant instant = Instant.ofEpochMilli(timestamp);
-		final LocalDate date = LocalDate.ofInstant(instant, ZoneOffset.systemDefault());
-		final ZoneOffset OFFSET = ZoneOffset.systemDefault().getRules().getOffset(Instant.now());
-		long begin = date.toEpochSecond(LocalTime.MIN, OFFSET) * 1000;
-		long end = date.toEpochSecond(LocalTime.MAX, OFFSET) * 1000 + 999;
-		return new RotateFile(resolve(date), begin, end);
+		// 轮换日志文件，将同一周期的日志写入相同文件
+		final long offset = offset(timestamp);
+		final long local = timestamp + offset;
+		final long day = Math.floorDiv(local, LoggerBuilder.DAY_MILLISECOND) * LoggerBuilder.DAY_MILLISECOND;
+		final long length = period * (long) LoggerBuilder.MINUTES_MILLISECOND;
+		final long begin = day + (local - day) / length * length;
+		return new RotateFile(resolve(begin, 0), begin - offset, begin + length - 1 - offset);
+	}
+
+	/**
+	 * 同一周期中指定序号的文件
+	 */
+	public RotateFile segment(RotateFile file, int sequence) {
+		final long local = file.begin() + offset(file.begin());
+		return new RotateFile(resolve(local, sequence), file.begin(), file.end(), sequence);
+	}
+
+	/**
+	 * 同一周期中已存在的最后一个文件，未限制文件大小时为首个文件
+	 */
+	private RotateFile last(RotateFile file) {
+		if (size <= 0) {
+			return file;
+		}
+		int sequence = 0;
+		while (Files.exists(segment(file, sequence + 1).path())) {
+			sequence++;
+		}
+		return sequence == 0 ? file : segment(file, sequence);
 	}
 
 	/**
-	 * 获取指定范围的文件，未检查文件是否存在
+	 * 获取指定日期范围的文件，未限制文件大小时未检查文件是否存在
 	 */
 	public Path[] rotates(LocalDate begin, LocalDate end) {
 		if (begin == null) {
 			if (end == null) {
-				return new Path[] { resolve(LocalDate.now()) };
+				begin = end = LocalDate.now();
 			} else {
-				return new Path[] { resolve(end) };
+				begin = end;
 			}
-		}
-		if (end == null) {
-			return new Path[] { resolve(begin) };
-		}
-		if (begin.isEqual(end)) {
-			return new Path[] { resolve(begin) };
-		}
-
-		Path paths[];
-		int i = (int) ChronoUnit.DAYS.between(begin, end);
-		if (i < 0) {
-			paths = new Path[i * -1 + 1];
-			LocalDate t = begin;
+		} else if (end == null) {
+			end = begin;
+		} else if (begin.isAfter(end)) {
+			final LocalDate t = begin;
 			begin = end;
 			end = t;
-		} else {
-			paths = new Path[i + 1];
-		}
-		i = 0;
-		do {
-			paths[i++] = resolve(begin);
-			begin = begin.plusDays(1);
-		} while (begin.isBefore(end));
-		paths[i] = resolve(end);
+		}
+		final RotateFile[] files = rotates(begin.atStartOfDay(), end.atTime(LocalTime.MAX));
+		final Path[] paths = new Path[files.length];
+		for (int index = 0; index < files.length; index++) {
+			paths[index] = files[index].path();
+		}
 		return paths;
 	}
 
 	/**
-	 * 获取指定范围的文件，未检查文件是否存在
+	 * 获取与指定时间范围重叠的文件，文件的起止时间截取为查询范围；
+	 * 未限制文件大小时未检查文件是否存在，限制文件大小时包含同一周期中已存在的序号文件
 	 */
 	public RotateFile[] rotates(LocalDateTime begin, LocalDateTime end) {
-		final ZoneOffset OFFSET = ZoneOffset.systemDefault().getRules().getOffset(Instant.now());
-
-		Path file;
+		final ZoneId zone = ZoneId.systemDefault();
 		long b, e;
 		if (begin == null) {
+			// 默认当天，或仅结束天
+			final LocalDate date = end == null ? LocalDate.now() : end.toLocalDate();
+			b = date.atStartOfDay(zone).toInstant().toEpochMilli();
 			if (end == null) {
-				// 默认当天
-				return new RotateFile[] { rotate(System.currentTimeMillis()) };
+				e = date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli() - 1;
 			} else {
-				// 仅结束天
-				file = resolve(end);
-				e = end.toInstant(OFFSET).toEpochMilli();
-				b = e - (e % LoggerBuilder.DAY_MILLISECOND);
-				return new RotateFile[] { new RotateFile(file, b, e) };
+				e = end.atZone(zone).toInstant().toEpochMilli();
+			}
+		} else {
+			b = begin.atZone(zone).toInstant().toEpochMilli();
+			if (end == null) {
+				// 仅开始天
+				e = begin.toLocalDate().plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli() - 1;
+			} else {
+				e = end.atZone(zone).toInstant().toEpochMilli();
+			}
+		}
+		if (b > e) {
+			final long t = b;
+			b = e;
+			e = t;
+		}
+
+		final List<RotateFile> files = new ArrayList<>();
+		RotateFile file = rotate(b), segment;
+		while (true) {
+			files.add(new RotateFile(file.path(), Math.max(b, file.begin()), Math.min(e, file.end())));
+			if (size > 0) {
+				for (int sequence = 1;; sequence++) {
+					segment = segment(file, sequence);
+					if (Files.exists(segment.path())) {
+						files.add(new RotateFile(segment.path(), Math.max(b, file.begin()), Math.min(e, file.end()), sequence));
+					} else {
+						break;
+					}
+				}
+			}
+			if (file.end() >= e) {
+				break;
+			}
+			file = rotate(file.end() + 1);
+		}
+		return files.toArray(new RotateFile[files.size()]);
+	}
+
+	/**
+	 * 获取时间戳对应的文件通道，打开的文件通道被缓存；
+	 * 非线程安全，调用者应确保仅单个线程写入
+	 */
+	protected GatheringByteChannel channel(long timestamp) throws IOException {
+		return channel(timestamp, 0);
+	}
+
+	/**
+	 * 获取时间戳对应的文件通道，打开的文件通道被缓存；限制文件大小时，
+	 * 写入指定字节数量将超过限制则切换到同一周期的下一序号文件；
+	 * 非线程安全，调用者应确保仅单个线程写入
+	 *
+	 * @param length 将要写入的字节数量
+	 */
+	protected GatheringByteChannel channel(long timestamp, int length) throws IOException {
+		if (timestamp > latest) {
+			latest = timestamp;
+			if (latest - checked > IDLE) {
+				expire();
+			}
+		}
+		if (current != null && !current.file.beyond(timestamp)) {
+			if (size > 0 && current.size > 0 && current.size + length > size) {
+				return next(length, current);
+			}
+			current.size += length;
+			current.used = latest;
+			return current.channel;
+		}
+		return select(timestamp, length);
+	}
+
+	private GatheringByteChannel select(long timestamp, int length) throws IOException {
+		final Handle previous = current;
+		Handle handle;
+		int empty = -1, eldest = -1;
+		for (int index = 0; index < HANDLES; index++) {
+			handle = handles[index];
+			if (handle == null) {
+				empty = index;
+			} else if (handle.full || handle.file.beyond(timestamp)) {
+				// 当前文件可能仍有待写数据，不能关闭
+				if (handle != current && (eldest < 0 || handle.used < handles[eldest].used)) {
+					eldest = index;
+				}
+			} else {
+				current = handle;
+				if (size > 0 && handle.size > 0 && handle.size + length > size) {
+					return next(length, previous);
+				}
+				handle.size += length;
+				handle.used = latest;
+				return handle.channel;
+			}
+		}
+
+		handle = prepared.getAndSet(null);
+		if (handle != null && handle.file.beyond(timestamp)) {
+			retire(handle.channel);
+			handle = null;
+		}
+		if (handle == null) {
+			final RotateFile file = last(rotate(timestamp));
+			handle = new Handle(file, open(file), latest);
+		} else {
+			// 使用预先打开的文件
+			handle.used = latest;
+		}
+		if (empty < 0) {
+			// 关闭最久未使用的文件
+			empty = eldest;
+			retire(handles[eldest].channel);
+		}
+		handles[empty] = current = handle;
+		boundary = handle.file.end();
+		if (prerotate && !closed) {
+			ROTATABLES.add(this);
+			rotator();
+		}
+		if (size > 0 && handle.size > 0 && handle.size + length > size) {
+			return next(length, previous);
+		}
+		handle.size += length;
+		return handle.channel;
+	}
+
+	/**
+	 * 当前文件已达到大小限制，切换到同一周期的下一序号文件
+	 *
+	 * @param previous 调用之前的当前文件，可能仍有待写数据，不能关闭
+	 */
+	private GatheringByteChannel next(int length, Handle previous) throws IOException {
+		final Handle full = current;
+		full.full = true;
+		final RotateFile file = segment(full.file, full.file.sequence() + 1);
+		final Handle handle = new Handle(file, open(file), latest);
+		int empty = -1, eldest = -1;
+		for (int index = 0; index < HANDLES; index++) {
+			if (handles[index] == null) {
+				empty = index;
+			} else if (handles[index] != full && handles[index] != previous && (eldest < 0 || handles[index].used < handles[eldest].used)) {
+				eldest = index;
+			}
+		}
+		if (empty < 0) {
+			// 已满的文件稍后因空闲或淘汰而关闭
+			empty = eldest;
+			retire(handles[eldest].channel);
+		}
+		handles[empty] = current = handle;
+		handle.size += length;
+		return handle.channel;
+	}
+
+	private GatheringByteChannel open(RotateFile file) throws IOException {
+		if (mapped > 0) {
+			return new LoggerMapped(file.path(), mapped);
+		}
+		// 追加模式无法预分配文件空间，预分配将在文件末尾留下空白
+		return FileChannel.open(file.path(), //
+			StandardOpenOption.CREATE, //
+			StandardOpenOption.WRITE, //
+			StandardOpenOption.APPEND);
+	}
+
+	/**
+	 * 预先打开时间戳对应的文件，写入线程切换文件时直接使用；通常由轮换线程在当前文件结束前调用
+	 */
+	public void prepare(long timestamp) throws IOException {
+		final Handle current = prepared.get();
+		if (current != null && !current.file.beyond(timestamp)) {
+			return;
+		}
+		final RotateFile file = last(rotate(timestamp));
+		final Handle handle = new Handle(file, open(file), 0);
+		final Handle old = prepared.getAndSet(handle);
+		if (old != null) {
+			RETIRES.add(old.channel);
+		}
+		if (closed && prepared.compareAndSet(handle, null)) {
+			// 预先打开期间日志已关闭
+			retire(handle.channel);
+		}
+	}
+
+	/** 预先打开的文件，未预先打开时返回 null */
+	public RotateFile getPrepared() {
+		final Handle handle = prepared.get();
+		return handle == null ? null : handle.file;
+	}
+
+	/** 设置是否在当前文件结束前预先打开下一文件，默认启用 */
+	public void setPrerotate(boolean value) {
+		prerotate = value;
+		if (!value) {
+			ROTATABLES.remove(this);
+		}
+	}
+
+	/** 是否在当前文件结束前预先打开下一文件 */
+	public boolean isPrerotate() {
+		return prerotate;
+	}
+
+	private static synchronized void rotator() {
+		if (ROTATOR == null) {
+			ROTATOR = new Thread(RotatableLogger::rotating, "LOGGER ROTATE");
+			ROTATOR.setDaemon(true);
+			ROTATOR.start();
+		}
+	}
+
+	/** 轮换线程：预先打开下一文件，刷新并关闭不再使用的文件 */
+	private static void rotating() {
+		long now, boundary;
+		GatheringByteChannel channel;
+		while (true) {
+			now = System.currentTimeMillis();
+			for (RotatableLogger logger : ROTATABLES) {
+				boundary = logger.boundary;
+				if (now >= boundary - PREROTATE && now <= boundary) {
+					try {
+						logger.prepare(boundary + 1);
+					} catch (IOException e) {
+						// 写入线程将自行打开文件
+					}
+				}
+			}
+			while ((channel = RETIRES.poll()) != null) {
+				try {
+					if (channel.isOpen()) {
+						force(channel);
+						channel.close();
+					}
+				} catch (IOException e) {
+					// 忽略关闭错误
+				}
+			}
+			LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(INTERVAL));
+		}
+	}
+
+	/** 关闭空闲的文件通道 */
+	private void expire() throws IOException {
+		checked = latest;
+		for (int index = 0; index < HANDLES; index++) {
+			if (handles[index] != null && handles[index] != current) {
+				if (latest - handles[index].used > IDLE) {
+					retire(handles[index].channel);
+					handles[index] = null;
+				}
+			}
+		}
+	}
+
+	/**
+	 * 关闭不再使用的文件通道，默认由轮换线程刷新后关闭，日志关闭时同步关闭；子类可重载
+	 */
+	protected void retire(GatheringByteChannel channel) throws IOException {
+		if (closed) {
+			if (channel.isOpen()) {
+				force(channel);
+				channel.close();
 			}
-		} else if (end == null) {
-			// 仅开始天
-			file = resolve(begin);
-			b = begin.toInstant(OFFSET).toEpochMilli();
-			e = b + (LoggerBuilder.DAY_MILLISECOND - (b % LoggerBuilder.DAY_MILLISECOND));
-			return new RotateFile[] { new RotateFile(file, b, e) };
-		}
-
-		int days = (int) begin.toLocalDate().until(end.toLocalDate(), ChronoUnit.DAYS) + 1;
-		if (days > 1) {
-			final RotateFile[] files = new RotateFile[days];
-			days = 0;
-			// FIRST
-			file = resolve(begin);
-			b = begin.toInstant(OFFSET).toEpochMilli();
-			e = b + (LoggerBuilder.DAY_MILLISECOND - (b % LoggerBuilder.DAY_MILLISECOND));
-			files[days++] = new RotateFile(file, b, e);
-
-			LocalDate date = begin.toLocalDate().plusDays(1);
-			for (; days < files.length - 1; days++) {
-				file = resolve(date);
-				b = LocalDateTime.of(date, LocalTime.MIN).toInstant(OFFSET).toEpochMilli();
-				b = LocalDateTime.of(date, LocalTime.MAX).toInstant(OFFSET).toEpochMilli();
-				files[days] = new RotateFile(file, b, e);
-			}
-
-			// LAST
-			file = resolve(end);
-			e = end.toInstant(OFFSET).toEpochMilli();
-			b = e - (e % LoggerBuilder.DAY_MILLISECOND);
-			files[days] = new RotateFile(file, b, e);
-
-			return files;
 		} else {
-			file = resolve(begin);
-			b = begin.toInstant(OFFSET).toEpochMilli();
-			e = end.toInstant(OFFSET).toEpochMilli();
-			return new RotateFile[] { new RotateFile(file, b, e) };
+			RETIRES.add(channel);
+			rotator();
+			LockSupport.unpark(ROTATOR);
+		}
+	}
+
+	/**
+	 * 关闭所有缓存的文件通道，日志关闭时调用
+	 */
+	protected void retires() throws IOException {
+		closed = true;
+		releases();
+	}
+
+	/**
+	 * 关闭所有缓存的文件通道，之后写入时重新打开；用于限制打开的文件数量
+	 */
+	protected void releases() throws IOException {
+		ROTATABLES.remove(this);
+		boundary = Long.MAX_VALUE;
+		final Handle handle = prepared.getAndSet(null);
+		if (handle != null) {
+			retire(handle.channel);
+		}
+		current = null;
+		for (int index = 0; index < HANDLES; index++) {
+			if (handles[index] != null) {
+				retire(handles[index].channel);
+				handles[index] = null;
+			}
 		}
 	}
 
-	private Path resolve(TemporalAccessor t) {
-		return dir.resolve(name + DateTimeFormatter.BASIC_ISO_DATE.format(t) + ext);
+	/**
+	 * 刷新文件通道，内存映射追加的文件仅同步已写入而未同步的范围
+	 */
+	static void force(GatheringByteChannel channel) throws IOException {
+		if (channel instanceof LoggerMapped m) {
+			m.force();
+		} else {
+			((FileChannel) channel).force(false);
+		}
+	}
+
+	/** 当前打开的文件数量 */
+	public int getOpenFiles() {
+		int size = 0;
+		for (int index = 0; index < HANDLES; index++) {
+			if (handles[index] != null) {
+				size++;
+			}
+		}
+		return size;
+	}
+
+	/** 已打开的文件通道 */
+	private final static class Handle {
+		final RotateFile file;
+		final GatheringByteChannel channel;
+		/** 最后使用的日志时间戳和文件字节数量 */
+		long used, size;
+		/** 已达到大小限制 */
+		boolean full;
+
+		Handle(RotateFile file, GatheringByteChannel channel, long used) throws IOException {
+			this.file = file;
+			this.channel = channel;
+			this.used = used;
+			if (channel instanceof LoggerMapped m) {
+				size = m.size();
+			} else {
+				size = ((FileChannel) channel).size();
+			}
+		}
+	}
+
+	/**
+	 * [Name][Split]20241202[-HHmm][-001][Extension]
+	 *
+	 * @param local 周期开始时间，本地时区的毫秒数
+	 */
+	private Path resolve(long local, int sequence) {
+		final long day = Math.floorDiv(local, LoggerBuilder.DAY_MILLISECOND);
+		final StringBuilder builder = new StringBuilder(name);
+		builder.append(DateTimeFormatter.BASIC_ISO_DATE.format(LocalDate.ofEpochDay(day)));
+		if (period < DAILY) {
+			final int minutes = (int) ((local - day * LoggerBuilder.DAY_MILLISECOND) / LoggerBuilder.MINUTES_MILLISECOND);
+			builder.append('-');
+			pad(builder, minutes / 60, 2);
+			pad(builder, minutes % 60, 2);
+		}
+		if (sequence > 0) {
+			builder.append('-');
+			pad(builder, sequence, 3);
+		}
+		builder.append(ext);
+		return dir.resolve(builder.toString());
+	}
+
+	/** 数字补零至指定宽度 */
+	private static void pad(StringBuilder builder, int value, int width) {
+		int digits = 1;
+		for (int v = value; v >= 10; v /= 10) {
+			digits++;
+		}
+		for (; digits < width; digits++) {
+			builder.append('0');
+		}
+		builder.append(value);
 	}
 
 	/**
@@ -14,13 +14,22 @@ import java.nio.file.Path;
 public class RotateFile {
 	private final Path file;
 	private final long begin, end;
+	private final int sequence;
 
 	public final static RotateFile EMPTY = new RotateFile(null, 0, 0);
 
 	public RotateFile(Path file, long begin, long end) {
+		this(file, begin, end, 0);
+	}
+
+	/**
+	 * @param sequence 同一周期中的文件序号，限制文件大小时递增
+	 */
+	public RotateFile(Path file, long begin, long end, int sequence) {
 		this.file = file;
 		this.begin = begin;
 		this.end = end;
+		this.sequence = sequence;
 	}
 
 	@Override
@@ -44,4 +53,9 @@ public class RotateFile {
 	public long begin() {
 		return begin;
 	}
+
+	/** 同一周期中的文件序号 */
+	public int sequence() {
+		return sequence;
+	}
 }
\ No newline at end of file
@@ -6,16 +6,16 @@ package com.joyzl.logger.access;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
-import java.nio.channels.ClosedByInterruptException;
-import java.nio.channels.FileChannel;
+import java.nio.channels.GatheringByteChannel;
 import java.nio.file.Files;
-import java.nio.file.StandardOpenOption;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.LinkedTransferQueue;
+import java.util.concurrent.locks.LockSupport;
 
-import com.joyzl.logger.LoggerBuilder;
+import com.joyzl.logger.LoggerBlackBox;
+import com.joyzl.logger.LoggerFlusher;
+import com.joyzl.logger.LoggerRing;
 import com.joyzl.logger.LoggerService;
 import com.joyzl.logger.LoggerWriter;
 import com.joyzl.logger.RotatableLogger;
@@ -28,7 +28,20 @@ import com.joyzl.logger.RotateFile;
  */
 public final class AccessLogger extends RotatableLogger implements AccessCodes {
 
+	/** 默认队列容量 */
+	public final static int CAPACITY = 65536;
+	/** 暂存缓冲区数量 */
+	final static int STAGING = 4;
+	/** 暂存缓冲区容量(字节) */
+	final static int STAGING_SIZE = 65536;
+	/** 记录模式：调用线程编码 */
+	public final static int ENCODE_CALLER = 0;
+	/** 记录模式：调用线程仅复制字段，写入线程编码 */
+	public final static int ENCODE_WRITER = 1;
+
 	private final AsynchronousWriter writer;
+	private volatile int mode = ENCODE_CALLER;
+	private volatile LoggerBlackBox blackbox;
 
 	/**
 	 * access-20241202.log
@@ -37,14 +50,34 @@ public final class AccessLogger extends RotatableLogger implements AccessCodes {
 		this(file, "access", "-", ".log");
 	}
 
+	/**
+	 * access-20241202.log
+	 *
+	 * @param capacity 队列容量
+	 * @param overflow 队列已满时的溢出策略 LoggerRing.BLOCK / DROP_NEWEST / DROP_OLDEST / SAMPLE
+	 */
+	public AccessLogger(String file, int capacity, int overflow) throws IOException {
+		this(file, "access", "-", ".log", capacity, overflow);
+	}
+
 	/**
 	 * [Name][Split]20241202[Extension]
 	 */
 	public AccessLogger(String file, final String n, final String s, final String e) throws IOException {
+		this(file, n, s, e, CAPACITY, LoggerRing.BLOCK);
+	}
+
+	/**
+	 * [Name][Split]20241202[Extension]
+	 *
+	 * @param capacity 队列容量
+	 * @param overflow 队列已满时的溢出策略 LoggerRing.BLOCK / DROP_NEWEST / DROP_OLDEST / SAMPLE
+	 */
+	public AccessLogger(String file, final String n, final String s, final String e, int capacity, int overflow) throws IOException {
 		super(file, n, s, e);
 		LoggerService.register(this);
 
-		writer = new AsynchronousWriter();
+		writer = new AsynchronousWriter(capacity, overflow);
 		writer.setDaemon(true);
 		writer.start();
 	}
@@ -53,10 +86,21 @@ public final class AccessLogger extends RotatableLogger implements AccessCodes {
 	 * 记录日志到文件，文件名自动按日期轮换"access-20241202.log"
 	 */
 	public void record(AccessRecord record) {
-		final LoggerBuilder builder = LoggerBuilder.instance();
-		builder.timestamp = record.getRequestTimestamp();
-		AccessWriter.encode(builder.builder(), record);
-		writer.put(builder);
+		AccessSlot slot = writer.SLOTS.poll();
+		if (slot == null) {
+			slot = new AccessSlot();
+		}
+		final LoggerBlackBox b = blackbox;
+		if (b != null) {
+			// 黑匣子须在调用线程记录
+			AccessWriter.encode(record, slot);
+			b.record(slot.bytes(), 0, slot.length());
+		} else if (mode == ENCODE_WRITER) {
+			slot.copy(record);
+		} else {
+			AccessWriter.encode(record, slot);
+		}
+		writer.put(slot);
 	}
 
 	/**
@@ -74,6 +118,92 @@ public final class AccessLogger extends RotatableLogger implements AccessCodes {
 		return records;
 	}
 
+	/** 队列溢出而丢弃的日志数量 */
+	public long getDrops() {
+		return writer.RECORDS.drops();
+	}
+
+	/** 队列长度的最高值 */
+	public int getHighWater() {
+		return writer.RECORDS.highWater();
+	}
+
+	/** 队列容量 */
+	public int getCapacity() {
+		return writer.RECORDS.capacity();
+	}
+
+	/** 写入文件的调用次数 */
+	public long getWrites() {
+		return writer.writes;
+	}
+
+	/** 写入文件的日志数量 */
+	public long getRecords() {
+		return writer.records;
+	}
+
+	/**
+	 * 设置记录模式 ENCODE_CALLER / ENCODE_WRITER；
+	 * ENCODE_WRITER 模式复制字段值到槽位，记录对象返回后即可重用，编码占用写入线程
+	 */
+	public void setRecordMode(int value) {
+		mode = value;
+	}
+
+	/** 记录模式 */
+	public int getRecordMode() {
+		return mode;
+	}
+
+	/**
+	 * 设置日志黑匣子，调用线程编码后复制到黑匣子，队列中尚未写入文件的日志在进程异常终止后仍可读取；
+	 * 设置黑匣子时记录模式视为 ENCODE_CALLER，黑匣子可由多个日志共用，由设置者关闭
+	 */
+	public void setBlackBox(LoggerBlackBox value) {
+		blackbox = value;
+	}
+
+	/** 日志黑匣子，未设置时返回 null */
+	public LoggerBlackBox getBlackBox() {
+		return blackbox;
+	}
+
+	/**
+	 * 设置持久化策略，默认每批写入后由刷新线程执行 force
+	 *
+	 * @param policy LoggerFlusher.NONE / INTERVAL / BYTES / BATCH / SYNC
+	 * @param value INTERVAL 为毫秒，BYTES 为字节数量，其余策略忽略
+	 */
+	public void setDurability(int policy, long value) {
+		writer.flusher.setPolicy(policy, value);
+	}
+
+	/** 持久化策略 */
+	public int getDurability() {
+		return writer.flusher.getPolicy();
+	}
+
+	/** 执行 force 的次数 */
+	public long getForces() {
+		return writer.flusher.getForces();
+	}
+
+	/** 设置写入线程的等待策略 LoggerWriter.BLOCKING / SPIN_YIELD / PARK / BUSY_SPIN */
+	public void setWaitStrategy(int value) {
+		writer.setWaitStrategy(value);
+	}
+
+	/** 写入线程的等待策略 */
+	public int getWaitStrategy() {
+		return writer.getWaitStrategy();
+	}
+
+	@Override
+	protected void retire(GatheringByteChannel channel) throws IOException {
+		writer.flusher.retire(channel);
+	}
+
 	@Override
 	public void close() throws IOException {
 		LoggerService.remove(this);
@@ -81,142 +211,141 @@ public final class AccessLogger extends RotatableLogger implements AccessCodes {
 	}
 
 	/** 异步写 */
-	private class AsynchronousWriter extends LoggerWriter<LoggerBuilder> {
+	private class AsynchronousWriter extends LoggerWriter<AccessSlot> {
 		/** 待写的日志记录 */
-		private final LinkedTransferQueue<LoggerBuilder> RECORDS = new LinkedTransferQueue<>();
-		private final ByteBuffer buffer = ByteBuffer.allocateDirect(1024);
-		private RotateFile file = RotateFile.EMPTY;
+		private final LoggerRing<AccessSlot> RECORDS;
+		/** 可重用的槽位 */
+		private final LoggerRing<AccessSlot> SLOTS;
+		/** 暂存缓冲区，写满或队列为空时聚集写入 */
+		private final ByteBuffer[] buffers = new ByteBuffer[STAGING];
+		/** 当前暂存缓冲区 */
+		private int staged;
+		/** 写入调用次数和写入的日志数量，仅写入线程更新 */
+		private volatile long writes, records;
+		private final LoggerFlusher flusher = new LoggerFlusher("ACCESS LOGGER FLUSHER", LoggerFlusher.BATCH, 0);
+		private GatheringByteChannel channel;
 		private volatile boolean end;
 
-		public AsynchronousWriter() {
+		public AsynchronousWriter(int capacity, int overflow) {
 			super("ACCESS LOGGER");
+			RECORDS = new LoggerRing<>(capacity, overflow);
+			SLOTS = new LoggerRing<>(capacity);
+			for (int index = 0; index < STAGING; index++) {
+				buffers[index] = ByteBuffer.allocateDirect(STAGING_SIZE);
+			}
+		}
+
+		@Override
+		public void put(AccessSlot item) {
+			final AccessSlot drop = RECORDS.put(item, this);
+			if (drop != null) {
+				release(drop);
+			}
+			signal();
 		}
 
 		@Override
-		public void put(LoggerBuilder item) {
-			RECORDS.offer(item);
+		protected boolean pending() {
+			return end || !RECORDS.isEmpty();
 		}
 
 		@Override
 		public void run() {
-			FileChannel channel = null;
-			LoggerBuilder builder;
+			while (!end) {
+				if (RECORDS.isEmpty()) {
+					idle();
+				} else {
+					busy();
+					try {
+						write();
+					} catch (IOException e) {
+						e.printStackTrace();
+					}
+				}
+			}
+		}
 
-			// 可能的中断点：take write force
+		/** 回收槽位，槽位池已满时丢弃 */
+		private void release(AccessSlot slot) {
+			slot.clear();
+			SLOTS.offer(slot);
+		}
 
-			while (true) {
+		/** 写入队列中的所有日志，已编码的字节合并到暂存缓冲区后聚集写入 */
+		private void write() throws IOException {
+			AccessSlot slot;
+			ByteBuffer buffer;
+			int offset, length;
+			while ((slot = RECORDS.poll()) != null) {
 				try {
-					builder = RECORDS.take();
-					do {
-						if (file.beyond(builder.timestamp)) {
-							if (channel != null) {
-								channel.force(false);
-								channel.close();
-							}
-
-							file = rotate(builder.timestamp);
-							channel = FileChannel.open(file.path(), //
-								StandardOpenOption.CREATE, //
-								StandardOpenOption.WRITE, //
-								StandardOpenOption.APPEND);
-						}
+					slot.encode();
+					final GatheringByteChannel c = channel(slot.timestamp, slot.length());
+					if (c != channel) {
+						// 暂存的日志属于之前的文件
+						flush();
+						channel = c;
+						flusher.select(c);
+					}
 
-						buffer.clear();
-						while (true) {
-							if (builder.encodeUTF8(buffer)) {
-								builder.release();
-								buffer.flip();
-								while (buffer.hasRemaining()) {
-									channel.write(buffer);
-								}
-								break;
-							} else {
-								buffer.flip();
-								while (buffer.hasRemaining()) {
-									channel.write(buffer);
-								}
+					offset = 0;
+					while (offset < slot.length()) {
+						buffer = buffers[staged];
+						if (!buffer.hasRemaining()) {
+							if (++staged == STAGING) {
+								// 暂存缓冲区均已写满
+								flush();
 							}
+							buffer = buffers[staged];
 						}
-
-						// NEXT
-						builder = RECORDS.poll();
-					} while (builder != null);
-					channel.force(false);
-				} catch (InterruptedException e) {
-					end = true;
-					return;
-				} catch (ClosedByInterruptException e) {
-					end = true;
-					return;
-				} catch (Exception e) {
-					e.printStackTrace();
+						length = Math.min(buffer.remaining(), slot.length() - offset);
+						buffer.put(slot.bytes(), offset, length);
+						offset += length;
+					}
+					records++;
+				} finally {
+					release(slot);
 				}
 			}
+			flush();
+			flusher.batch();
+		}
+
+		private void flush() throws IOException {
+			final int count = Math.min(staged + 1, STAGING);
+			if (buffers[0].position() == 0) {
+				return;
+			}
+			for (int index = 0; index < count; index++) {
+				buffers[index].flip();
+			}
+			while (buffers[count - 1].hasRemaining()) {
+				flusher.written(channel.write(buffers, 0, count));
+				writes++;
+			}
+			for (int index = 0; index < count; index++) {
+				buffers[index].clear();
+			}
+			staged = 0;
 		}
 
 		@Override
 		public void close() throws IOException {
-			if (!LoggerService.isShutdown()) {
-				// 如果不是程序终止则应当是用户关闭
-				// 应触发中断任务先
-				interrupt();
+			// 不能中断，中断将关闭文件通道
+			end = true;
+			LockSupport.unpark(this);
+			try {
+				join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
 			}
-
-			while (!end)
-				;
-
-			if (file != RotateFile.EMPTY) {
-				FileChannel channel = null;
-
-				if (buffer.hasRemaining()) {
-					channel = FileChannel.open(file.path(), //
-						StandardOpenOption.WRITE, //
-						StandardOpenOption.APPEND);
-					while (buffer.hasRemaining()) {
-						channel.write(buffer);
-					}
-					channel.force(false);
-				}
-				LoggerBuilder builder = RECORDS.poll();
-				while (builder != null) {
-					if (file.beyond(builder.timestamp)) {
-						if (channel != null) {
-							channel.force(false);
-							channel.close();
-						}
-
-						file = rotate(builder.timestamp);
-						channel = FileChannel.open(file.path(), //
-							StandardOpenOption.CREATE, //
-							StandardOpenOption.WRITE, //
-							StandardOpenOption.APPEND);
-					}
-
-					buffer.clear();
-					while (true) {
-						if (builder.encodeUTF8(buffer)) {
-							builder.release();
-							buffer.flip();
-							while (buffer.hasRemaining()) {
-								channel.write(buffer);
-							}
-							break;
-						} else {
-							buffer.flip();
-							while (buffer.hasRemaining()) {
-								channel.write(buffer);
-							}
-						}
-					}
-
-					// NEXT
-					builder = RECORDS.poll();
-				}
-				if (channel != null) {
-					channel.force(false);
-					channel.close();
-				}
+			// 写入剩余日志
+			try {
+				write();
+			} finally {
+				channel = null;
+				retires();
+				flusher.close();
 			}
 		}
 	};
-}
\ No newline at end of file
+}
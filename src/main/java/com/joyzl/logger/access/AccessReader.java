@@ -37,11 +37,12 @@ public class AccessReader implements AccessCodes {
 		final LoggerBuilder builder = LoggerBuilder.instance();
 		try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
 			/*-
-			 * 1749459420945 16:57:0.945 80 www.joyzl.com 192.168.0.1 GET /web HTTP/1.1 0 TEST(Servlet) 0 200 0
+			 * 1749459420945 16:57:00.945 80 www.joyzl.com 192.168.0.1 GET /web HTTP/1.1 0 TEST(Servlet) 0 200 0
 			 */
 			char c;
 			int start = 0, i = 0, field = 0;
 			long timestamp;
+			boolean padding = false;
 
 			while (channel.read(buffer) > 0) {
 				if (builder.decodeUTF8(buffer.flip())) {
@@ -101,6 +102,12 @@ public class AccessReader implements AccessCodes {
 						}
 						start = i + 1;
 						field = 0;
+					} else //
+					if (c == 0) {
+						// 内存映射写入中或异常终止的文件末尾为零字节
+						builder.builder().setLength(i);
+						padding = true;
+						break;
 					}
 					i++;
 				}
@@ -108,6 +115,9 @@ public class AccessReader implements AccessCodes {
 				builder.builder().delete(0, start);
 				start = 0;
 				i = 0;
+				if (padding) {
+					break;
+				}
 			}
 
 			// 修正尾部换行丢失
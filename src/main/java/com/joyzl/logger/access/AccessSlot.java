@@ -0,0 +1,317 @@
+/*
+ * Copyright © 2017-2025 重庆骄智科技有限公司.
+ * 本软件根据 Apache License 2.0 开源，详见 LICENSE 文件。
+ */
+package com.joyzl.logger.access;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+
+import com.joyzl.logger.LoggerBuilder;
+
+/**
+ * 访问日志槽位，调用线程直接编码为UTF-8字节，写入线程无须再次编码；
+ * 或者仅复制记录字段，由写入线程编码；槽位由写入线程回收重用
+ *
+ * @author ZhangXi 2026年10月18日
+ */
+public final class AccessSlot implements AccessRecord {
+
+	/** 已编码字符串缓存容量，必须为2的幂 */
+	final static int CACHE_SIZE = 256;
+	/** 可缓存的字符串最大长度 */
+	final static int CACHE_LENGTH = 64;
+	/** 按对象标识缓存的已编码字符串，重复出现的方法、主机、处理程序和版本无须再次编码 */
+	private final static Cached[] CACHE = new Cached[CACHE_SIZE];
+	/** 出现过一次的字符串，再次出现时才缓存，每次不同的字符串不会产生缓存对象 */
+	private final static String[] SEEN = new String[CACHE_SIZE];
+
+	private final static byte[] NULL = { 'n', 'u', 'l', 'l' };
+	private final static byte[] MIN_INT = Integer.toString(Integer.MIN_VALUE).getBytes();
+
+	private byte[] bytes = new byte[256];
+	private ByteBuffer buffer = ByteBuffer.wrap(bytes);
+	private int length;
+	/** 日志时间戳 */
+	public long timestamp;
+
+	/** 复制的记录字段，由写入线程编码 */
+	private boolean deferred;
+	private InetSocketAddress remoteAddress;
+	private String host, method, uri, version, servlet;
+	private int serverPort, requestBodySize, servletSpend, responseStatus, responseBodySize;
+
+	/** 槽位通常由访问日志从对象池获取 */
+	public AccessSlot() {
+	}
+
+	/** 已编码的字节 */
+	public byte[] bytes() {
+		return bytes;
+	}
+
+	/** 已编码的字节数量 */
+	public int length() {
+		return length;
+	}
+
+	/** 清空内容 */
+	public void clear() {
+		length = 0;
+		timestamp = 0;
+		deferred = false;
+		remoteAddress = null;
+		host = method = uri = version = servlet = null;
+	}
+
+	/** 复制记录字段，不编码 */
+	public void copy(AccessRecord record) {
+		timestamp = record.getRequestTimestamp();
+		serverPort = record.getServerPort();
+		remoteAddress = record.getRemoteAddress();
+		host = record.getHost();
+		method = record.getRequestMethod();
+		uri = record.getRequestURI();
+		version = record.getRequestVersion();
+		requestBodySize = record.getRequestBodySize();
+		servlet = record.getServletName();
+		servletSpend = record.getServletSpend();
+		responseStatus = record.getResponseStatus();
+		responseBodySize = record.getResponseBodySize();
+		deferred = true;
+	}
+
+	/** 是否仅复制了记录字段而尚未编码 */
+	public boolean isDeferred() {
+		return deferred;
+	}
+
+	/** 编码复制的记录字段 */
+	public void encode() {
+		if (deferred) {
+			length = 0;
+			AccessWriter.encode(this, this);
+			deferred = false;
+		}
+	}
+
+	@Override
+	public int getServerPort() {
+		return serverPort;
+	}
+
+	@Override
+	public InetSocketAddress getRemoteAddress() {
+		return remoteAddress;
+	}
+
+	@Override
+	public String getHost() {
+		return host;
+	}
+
+	@Override
+	public long getRequestTimestamp() {
+		return timestamp;
+	}
+
+	@Override
+	public String getRequestMethod() {
+		return method;
+	}
+
+	@Override
+	public String getRequestURI() {
+		return uri;
+	}
+
+	@Override
+	public String getRequestVersion() {
+		return version;
+	}
+
+	@Override
+	public int getRequestBodySize() {
+		return requestBodySize;
+	}
+
+	@Override
+	public String getServletName() {
+		return servlet;
+	}
+
+	@Override
+	public int getServletSpend() {
+		return servletSpend;
+	}
+
+	@Override
+	public int getResponseStatus() {
+		return responseStatus;
+	}
+
+	@Override
+	public int getResponseBodySize() {
+		return responseBodySize;
+	}
+
+	private void ensure(int size) {
+		if (length + size > bytes.length) {
+			final byte[] larger = new byte[Math.max(bytes.length * 2, length + size)];
+			System.arraycopy(bytes, 0, larger, 0, length);
+			bytes = larger;
+			buffer = ByteBuffer.wrap(bytes);
+		}
+	}
+
+	void append(char c) {
+		ensure(1);
+		bytes[length++] = (byte) c;
+	}
+
+	void append(int value) {
+		if (value == Integer.MIN_VALUE) {
+			append(MIN_INT);
+			return;
+		}
+		ensure(11);
+		if (value < 0) {
+			bytes[length++] = '-';
+			value = -value;
+		}
+		int end = length + digits(value);
+		length = end;
+		do {
+			bytes[--end] = (byte) ('0' + value % 10);
+			value /= 10;
+		} while (value > 0);
+	}
+
+	void append(long value) {
+		if (value >= Integer.MIN_VALUE + 1 && value <= Integer.MAX_VALUE) {
+			append((int) value);
+			return;
+		}
+		if (value == Long.MIN_VALUE) {
+			append(Long.toString(value));
+			return;
+		}
+		ensure(20);
+		if (value < 0) {
+			bytes[length++] = '-';
+			value = -value;
+		}
+		int end = length;
+		for (long v = value; v > 0; v /= 10) {
+			end++;
+		}
+		length = end;
+		do {
+			bytes[--end] = (byte) ('0' + value % 10);
+			value /= 10;
+		} while (value > 0);
+	}
+
+	private static int digits(int value) {
+		int size = 1;
+		while (value >= 10) {
+			value /= 10;
+			size++;
+		}
+		return size;
+	}
+
+	/** 10:25:20.998 */
+	void time(long timestamp) {
+		ensure(LoggerBuilder.TIME_LENGTH);
+		LoggerBuilder.encodeTime(buffer.clear().position(length), timestamp);
+		length += LoggerBuilder.TIME_LENGTH;
+	}
+
+	/** IPv4 地址值直接编码为点分十进制 */
+	void address(int address) {
+		append((address >>> 24) & 0xFF);
+		append('.');
+		append((address >>> 16) & 0xFF);
+		append('.');
+		append((address >>> 8) & 0xFF);
+		append('.');
+		append(address & 0xFF);
+	}
+
+	void append(byte[] value) {
+		ensure(value.length);
+		System.arraycopy(value, 0, bytes, length, value.length);
+		length += value.length;
+	}
+
+	/** 编码字符串，重复出现的短字符串从缓存复制 */
+	void cached(String value) {
+		if (value == null) {
+			append(NULL);
+			return;
+		}
+		if (value.length() > CACHE_LENGTH) {
+			append(value);
+			return;
+		}
+		final int index = System.identityHashCode(value) & (CACHE_SIZE - 1);
+		final Cached cached = CACHE[index];
+		if (cached != null && cached.key == value) {
+			append(cached.bytes);
+		} else if (SEEN[index] == value) {
+			// 再次出现，编码后缓存
+			final int begin = length;
+			append(value);
+			final byte[] encoded = new byte[length - begin];
+			System.arraycopy(bytes, begin, encoded, 0, encoded.length);
+			CACHE[index] = new Cached(value, encoded);
+		} else {
+			// 首次出现，直接编码
+			SEEN[index] = value;
+			append(value);
+		}
+	}
+
+	/** 编码字符串，ASCII 字符直接写入 */
+	void append(String value) {
+		if (value == null) {
+			append(NULL);
+			return;
+		}
+		ensure(value.length() * 3);
+		char c;
+		for (int index = 0; index < value.length(); index++) {
+			c = value.charAt(index);
+			if (c < 0x80) {
+				bytes[length++] = (byte) c;
+			} else if (c < 0x800) {
+				bytes[length++] = (byte) (0xC0 | (c >> 6));
+				bytes[length++] = (byte) (0x80 | (c & 0x3F));
+			} else if (Character.isHighSurrogate(c) && index + 1 < value.length() && Character.isLowSurrogate(value.charAt(index + 1))) {
+				final int cp = Character.toCodePoint(c, value.charAt(++index));
+				bytes[length++] = (byte) (0xF0 | (cp >> 18));
+				bytes[length++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+				bytes[length++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+				bytes[length++] = (byte) (0x80 | (cp & 0x3F));
+			} else if (Character.isSurrogate(c)) {
+				// 无效的代理字符
+				bytes[length++] = '?';
+			} else {
+				bytes[length++] = (byte) (0xE0 | (c >> 12));
+				bytes[length++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+				bytes[length++] = (byte) (0x80 | (c & 0x3F));
+			}
+		}
+	}
+
+	private final static class Cached {
+		final String key;
+		final byte[] bytes;
+
+		Cached(String key, byte[] bytes) {
+			this.key = key;
+			this.bytes = bytes;
+		}
+	}
+}
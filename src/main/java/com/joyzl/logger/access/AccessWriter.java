@@ -4,6 +4,9 @@
  */
 package com.joyzl.logger.access;
 
+import java.net.Inet4Address;
+import java.net.InetSocketAddress;
+
 import com.joyzl.logger.LoggerBuilder;
 
 /**
@@ -66,4 +69,65 @@ public class AccessWriter implements AccessCodes {
 		builder.append(record.getResponseBodySize());
 		builder.append(LINE);
 	}
+
+	/** 构造日志字节，直接编码为UTF-8字节到槽位，不经过字符串和字符缓存 */
+	public static void encode(AccessRecord record, AccessSlot slot) {
+		slot.timestamp = record.getRequestTimestamp();
+		slot.append(record.getRequestTimestamp());
+		slot.append(SPACE);
+
+		slot.time(record.getRequestTimestamp());
+		slot.append(SPACE);
+
+		slot.append(record.getServerPort());
+		slot.append(SPACE);
+
+		if (record.getHost() != null) {
+			slot.cached(record.getHost());
+		} else {
+			slot.append(MINUS);
+		}
+		slot.append(SPACE);
+
+		final InetSocketAddress address = record.getRemoteAddress();
+		if (address != null) {
+			if (address.getAddress() instanceof Inet4Address) {
+				// Inet4Address 的散列值即地址值，getAddress() 将复制地址字节
+				slot.address(address.getAddress().hashCode());
+			} else {
+				slot.append(address.getHostString());
+			}
+		} else {
+			slot.append(MINUS);
+		}
+		slot.append(SPACE);
+
+		slot.cached(record.getRequestMethod());
+		slot.append(SPACE);
+
+		slot.append(record.getRequestURI());
+		slot.append(SPACE);
+
+		slot.cached(record.getRequestVersion());
+		slot.append(SPACE);
+
+		slot.append(record.getRequestBodySize());
+		slot.append(SPACE);
+
+		if (record.getServletName() != null) {
+			slot.cached(record.getServletName());
+		} else {
+			slot.append(MINUS);
+		}
+		slot.append(SPACE);
+
+		slot.append(record.getServletSpend());
+		slot.append(SPACE);
+
+		slot.append(record.getResponseStatus());
+		slot.append(SPACE);
+
+		slot.append(record.getResponseBodySize());
+		slot.append(LINE);
+	}
 }
\ No newline at end of file
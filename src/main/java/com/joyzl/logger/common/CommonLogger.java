@@ -6,15 +6,20 @@ package com.joyzl.logger.common;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
-import java.nio.channels.FileChannel;
+import java.nio.channels.GatheringByteChannel;
 import java.nio.file.Files;
-import java.nio.file.StandardOpenOption;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.locks.LockSupport;
 import java.util.concurrent.locks.ReentrantLock;
 
+import com.joyzl.logger.LoggerFlusher;
+import com.joyzl.logger.LoggerRing;
 import com.joyzl.logger.LoggerService;
+import com.joyzl.logger.LoggerWriter;
 import com.joyzl.logger.RotatableLogger;
 import com.joyzl.logger.RotateFile;
 
@@ -33,8 +38,13 @@ public final class CommonLogger extends RotatableLogger {
 	/** 4096 UTF-8(Char MAX 4Byte) */
 	private final ByteBuffer buffer = ByteBuffer.allocateDirect(4096 * 4);
 	private final ReentrantLock lock = new ReentrantLock();
-	RotateFile file = RotateFile.EMPTY;
-	FileChannel channel;
+	private final LoggerFlusher flusher = new LoggerFlusher("COMMON LOGGER FLUSHER", LoggerFlusher.SYNC, 0);
+	GatheringByteChannel channel;
+	/** 组提交写入线程，启用组提交模式时创建 */
+	private volatile GroupCommit group;
+	private volatile boolean grouping;
+	/** 已关闭，拒绝之后的日志，避免重新打开的文件无法关闭 */
+	private volatile boolean closed;
 
 	/*
 	 * clf-20241202.log
@@ -52,35 +62,97 @@ public final class CommonLogger extends RotatableLogger {
 	}
 
 	/**
-	 * 记录日志到文件，文件名自动轮换"clf-20241202.log"
+	 * 记录日志到文件，文件名自动轮换"clf-20241202.log"；
+	 * 组提交模式下等待日志与其它日志合并写入并持久化后返回；关闭后抛出 IOException
 	 */
 	public void record(CommonRecord record) throws IOException {
+		if (grouping) {
+			try {
+				submit(record).join();
+			} catch (CompletionException e) {
+				if (e.getCause() instanceof IOException) {
+					throw (IOException) e.getCause();
+				}
+				throw e;
+			}
+			return;
+		}
 		lock.lock();
 		try {
-			if (file.beyond(record.getTimestamp())) {
-				if (channel != null && channel.isOpen()) {
-					channel.force(false);
-					channel.close();
-				}
-				file = rotate(record.getTimestamp());
-				channel = FileChannel.open(file.path(), //
-					StandardOpenOption.CREATE, //
-					StandardOpenOption.WRITE, //
-					StandardOpenOption.APPEND);
+			if (closed) {
+				throw new IOException("日志已关闭");
 			}
-
 			CommonWriter.encode(record, buffer);
 			buffer.flip();
+			select(channel(record.getTimestamp(), buffer.remaining()));
 			while (buffer.hasRemaining()) {
-				channel.write(buffer);
+				flusher.written(channel.write(buffer));
 			}
-			channel.force(false);
-			buffer.clear();
+			flusher.batch();
 		} finally {
+			buffer.clear();
 			lock.unlock();
 		}
 	}
 
+	/**
+	 * 提交日志，组提交模式下调用线程仅编码日志，由组提交线程将待写日志合并为一次写入和一次 force，
+	 * 持久化后完成返回的 CompletableFuture；非组提交模式下同步记录；关闭后返回失败的 CompletableFuture
+	 */
+	public CompletableFuture<Void> submit(CommonRecord record) {
+		final GroupCommit g = group;
+		if (grouping && g != null) {
+			Commit commit = g.COMMITS.poll();
+			if (commit == null) {
+				commit = new Commit();
+			}
+			commit.timestamp = record.getTimestamp();
+			commit.future = new CompletableFuture<>();
+			CommonWriter.encode(record, commit.buffer);
+			commit.buffer.flip();
+			final CompletableFuture<Void> future = commit.future;
+			g.put(commit);
+			return future;
+		}
+		try {
+			record(record);
+			return CompletableFuture.completedFuture(null);
+		} catch (IOException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+	}
+
+	/** 切换到指定的文件，调用者应持有锁 */
+	private void select(GatheringByteChannel c) {
+		if (c != channel) {
+			channel = c;
+			flusher.select(c);
+		}
+	}
+
+	@Override
+	protected void retire(GatheringByteChannel channel) throws IOException {
+		flusher.retire(channel);
+	}
+
+	/**
+	 * 设置组提交模式，多个线程同时记录的日志合并为一次写入和一次 force，
+	 * 不论持久化策略均在 force 后返回，持久化保证与同步模式相同
+	 */
+	public synchronized void setGroupCommit(boolean value) {
+		if (value && group == null) {
+			group = new GroupCommit();
+			group.setDaemon(true);
+			group.start();
+		}
+		grouping = value;
+	}
+
+	/** 是否组提交模式 */
+	public boolean isGroupCommit() {
+		return grouping;
+	}
+
 	/**
 	 * 搜索日志从文件
 	 */
@@ -98,12 +170,176 @@ public final class CommonLogger extends RotatableLogger {
 		return records;
 	}
 
+	/**
+	 * 设置持久化策略，默认每条日志同步执行 force 以确保日志被如实记录
+	 *
+	 * @param policy LoggerFlusher.NONE / INTERVAL / BYTES / BATCH / SYNC
+	 * @param value INTERVAL 为毫秒，BYTES 为字节数量，其余策略忽略
+	 */
+	public void setDurability(int policy, long value) {
+		flusher.setPolicy(policy, value);
+	}
+
+	/** 持久化策略 */
+	public int getDurability() {
+		return flusher.getPolicy();
+	}
+
+	/** 执行 force 的次数 */
+	public long getForces() {
+		return flusher.getForces();
+	}
+
 	@Override
 	public void close() throws IOException {
 		LoggerService.remove(this);
-		if (channel != null && channel.isOpen()) {
-			channel.force(false);
-			channel.close();
+		grouping = false;
+		if (group != null) {
+			group.close();
+		}
+		lock.lock();
+		try {
+			closed = true;
+			channel = null;
+			retires();
+			flusher.close();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/** 待提交的日志 */
+	private final static class Commit {
+		/** 4096 UTF-8(Char MAX 4Byte) */
+		final ByteBuffer buffer = ByteBuffer.allocateDirect(4096 * 4);
+		CompletableFuture<Void> future;
+		long timestamp;
+	}
+
+	/** 组提交写入线程 */
+	private class GroupCommit extends LoggerWriter<Commit> {
+		/** 单次聚集写入的最大日志数量 */
+		final static int BATCH = 64;
+		/** 待写的日志 */
+		private final LoggerRing<Commit> RECORDS = new LoggerRing<>(1024);
+		/** 可重用的日志缓冲 */
+		private final LoggerRing<Commit> COMMITS = new LoggerRing<>(1024);
+		private final Commit[] commits = new Commit[BATCH];
+		private final ByteBuffer[] buffers = new ByteBuffer[BATCH];
+		private volatile boolean end;
+
+		GroupCommit() {
+			super("COMMON LOGGER COMMIT");
+		}
+
+		@Override
+		public void put(Commit commit) {
+			RECORDS.put(commit, this);
+			signal();
+			if (end) {
+				// 已关闭，在调用线程提交
+				commit();
+			}
+		}
+
+		@Override
+		protected boolean pending() {
+			return end || !RECORDS.isEmpty();
+		}
+
+		@Override
+		public void run() {
+			while (!end) {
+				if (RECORDS.isEmpty()) {
+					idle();
+				} else {
+					busy();
+					commit();
+				}
+			}
+		}
+
+		/** 合并写入队列中的日志，持久化后完成 */
+		private void commit() {
+			Commit commit;
+			int size = 0;
+			lock.lock();
+			try {
+				if (closed) {
+					// 关闭后到达的日志
+					while ((commit = RECORDS.poll()) != null) {
+						commit.future.completeExceptionally(new IOException("日志已关闭"));
+						release(commit);
+					}
+					return;
+				}
+				while ((commit = RECORDS.poll()) != null) {
+					try {
+						final GatheringByteChannel c = channel(commit.timestamp, commit.buffer.remaining());
+						if (size > 0 && (size == BATCH || c != channel)) {
+							// 跨越日期的日志写入另一文件
+							size = write(size);
+						}
+						select(c);
+					} catch (IOException e) {
+						commit.future.completeExceptionally(e);
+						release(commit);
+						continue;
+					}
+					commits[size] = commit;
+					buffers[size++] = commit.buffer;
+				}
+				write(size);
+			} finally {
+				lock.unlock();
+			}
+		}
+
+		/** 聚集写入并持久化同一文件的日志，持久化后完成 */
+		private int write(int size) {
+			if (size == 0) {
+				return 0;
+			}
+			try {
+				while (buffers[size - 1].hasRemaining()) {
+					flusher.written(channel.write(buffers, 0, size));
+				}
+				// 不论持久化策略，完成前均须刷新
+				flusher.sync();
+				for (int index = 0; index < size; index++) {
+					commits[index].future.complete(null);
+				}
+			} catch (IOException e) {
+				for (int index = 0; index < size; index++) {
+					commits[index].future.completeExceptionally(e);
+				}
+			} finally {
+				for (int index = 0; index < size; index++) {
+					release(commits[index]);
+					commits[index] = null;
+					buffers[index] = null;
+				}
+			}
+			return 0;
+		}
+
+		private void release(Commit commit) {
+			commit.buffer.clear();
+			commit.future = null;
+			COMMITS.offer(commit);
+		}
+
+		@Override
+		public void close() throws IOException {
+			end = true;
+			LockSupport.unpark(this);
+			try {
+				join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			// 提交剩余日志
+			commit();
 		}
 	}
-}
\ No newline at end of file
+}
@@ -45,6 +45,10 @@ public class CommonReader implements CommonCodes {
 				bytes.position(0);
 				if (channel.read(bytes) == 76) {
 					bytes.flip();
+					if (bytes.get(0) == 0) {
+						// 内存映射写入中或异常终止的文件末尾为零字节
+						break;
+					}
 
 					// 由三部分组成
 					// [Index Pointers | Mandatory Fields | OptionalFields]
@@ -4,14 +4,30 @@
  */
 package com.joyzl.logger.test;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.InetAddress;
 import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
 import java.util.List;
 
 import org.junit.jupiter.api.Test;
 
+import com.joyzl.logger.LoggerFlusher;
+import com.joyzl.logger.LoggerRing;
+import com.joyzl.logger.LoggerWriter;
 import com.joyzl.logger.access.AccessLogger;
 import com.joyzl.logger.access.AccessRecord;
 import com.joyzl.logger.access.AccessRecordDefault;
+import com.joyzl.logger.access.AccessSlot;
+import com.joyzl.logger.access.AccessWriter;
 
 class TestAccessLogger {
 
@@ -44,4 +60,229 @@ class TestAccessLogger {
 
 		logger.close();
 	}
+
+	@Test
+	void testEncode() throws Exception {
+		final AccessSlot slot = new AccessSlot();
+		final StringBuilder builder = new StringBuilder();
+		final AccessRecordDefault record = (AccessRecordDefault) record();
+		for (int i = 0; i < 3; i++) {
+			// 第二次起从缓存复制
+			slot.clear();
+			builder.setLength(0);
+			AccessWriter.encode(builder, record);
+			AccessWriter.encode(record, slot);
+			assertEquals(builder.toString(), new String(slot.bytes(), 0, slot.length(), StandardCharsets.UTF_8));
+		}
+
+		record.setRemoteAddress(new InetSocketAddress(InetAddress.getByAddress(new byte[] { 10, 0, (byte) 200, 1 }), 8080));
+		record.setRequestURI("/\uD840\uDC00/路径?a=1");
+		record.setRequestBodySize(Integer.MIN_VALUE);
+		record.setServletSpend(-12);
+		record.setResponseBodySize(Integer.MAX_VALUE);
+		record.setHost(null);
+		record.setServletName(null);
+		slot.clear();
+		builder.setLength(0);
+		AccessWriter.encode(builder, record);
+		AccessWriter.encode(record, slot);
+		assertEquals(builder.toString(), new String(slot.bytes(), 0, slot.length(), StandardCharsets.UTF_8));
+
+		// 复制字段后由写入线程编码
+		slot.clear();
+		slot.copy(record);
+		assertTrue(slot.isDeferred());
+		slot.encode();
+		assertEquals(builder.toString(), new String(slot.bytes(), 0, slot.length(), StandardCharsets.UTF_8));
+
+		// 地址各字节的边界值
+		for (byte[] address : new byte[][] { { 0, 0, 0, 0 }, { (byte) 255, (byte) 255, (byte) 255, (byte) 255 }, { (byte) 128, 127, 1, (byte) 192 } }) {
+			record.setRemoteAddress(new InetSocketAddress(InetAddress.getByAddress(address), 80));
+			slot.clear();
+			builder.setLength(0);
+			AccessWriter.encode(builder, record);
+			AccessWriter.encode(record, slot);
+			assertEquals(builder.toString(), new String(slot.bytes(), 0, slot.length(), StandardCharsets.UTF_8));
+		}
+	}
+
+	@Test
+	void testRecordMode() throws Exception {
+		final Path file = Path.of("mode-" + DateTimeFormatter.BASIC_ISO_DATE.format(LocalDate.now()) + ".log");
+		Files.deleteIfExists(file);
+
+		final AccessLogger logger = new AccessLogger("mode.log");
+		logger.setRecordMode(AccessLogger.ENCODE_WRITER);
+		final AccessRecordDefault record = (AccessRecordDefault) record();
+		for (int i = 0; i < 1000; i++) {
+			// 记录对象可立即重用
+			record.setResponseBodySize(i);
+			logger.record(record);
+		}
+		logger.close();
+
+		final List<String> lines = Files.readAllLines(file);
+		assertEquals(1000, lines.size());
+		for (int i = 0; i < lines.size(); i++) {
+			assertTrue(lines.get(i).endsWith(" " + i));
+		}
+		Files.delete(file);
+	}
+
+	long overflow(int overflow) throws Exception {
+		final Path file = Path.of("overflow-" + DateTimeFormatter.BASIC_ISO_DATE.format(LocalDate.now()) + ".log");
+		Files.deleteIfExists(file);
+
+		final int threads = 4, times = 5000;
+		final AccessLogger logger = new AccessLogger("overflow.log", 16, overflow);
+		final Thread[] producers = new Thread[threads];
+		for (int t = 0; t < threads; t++) {
+			producers[t] = new Thread(() -> {
+				for (int i = 0; i < times; i++) {
+					logger.record(record());
+				}
+			});
+			producers[t].start();
+		}
+		for (Thread thread : producers) {
+			thread.join();
+		}
+		logger.close();
+
+		final long lines = Files.lines(file).count();
+		System.out.println("OVERFLOW:" + overflow + " LINES:" + lines + " DROPS:" + logger.getDrops() + " HIGH WATER:" + logger.getHighWater());
+		assertEquals(threads * times, lines + logger.getDrops());
+		assertTrue(logger.getHighWater() <= logger.getCapacity());
+		Files.delete(file);
+		return logger.getDrops();
+	}
+
+	@Test
+	void testOverflow() throws Exception {
+		assertEquals(0, overflow(LoggerRing.BLOCK));
+		overflow(LoggerRing.DROP_NEWEST);
+		overflow(LoggerRing.DROP_OLDEST);
+		overflow(LoggerRing.SAMPLE);
+	}
+
+	@Test
+	void testRing() {
+		LoggerRing<Integer> ring = new LoggerRing<>(4, LoggerRing.DROP_OLDEST);
+		for (int i = 0; i < 10; i++) {
+			ring.put(i, null);
+		}
+		assertEquals(6, ring.drops());
+		assertEquals(4, ring.highWater());
+		for (int i = 6; i < 10; i++) {
+			assertEquals(i, ring.poll());
+		}
+		assertNull(ring.poll());
+
+		ring = new LoggerRing<>(4, LoggerRing.DROP_NEWEST);
+		for (int i = 0; i < 10; i++) {
+			ring.put(i, null);
+		}
+		assertEquals(6, ring.drops());
+		for (int i = 0; i < 4; i++) {
+			assertEquals(i, ring.poll());
+		}
+		assertTrue(ring.isEmpty());
+	}
+
+	@Test
+	void testWaitStrategy() throws Exception {
+		final String[] names = { "BLOCKING", "SPIN_YIELD", "PARK", "BUSY_SPIN" };
+		final int bursts = 200, size = 50;
+		final long[] latencies = new long[bursts * size];
+		final AccessRecord record = record();
+		long time;
+		for (int strategy = LoggerWriter.BLOCKING; strategy <= LoggerWriter.BUSY_SPIN; strategy++) {
+			final Path file = Path.of("wait-" + DateTimeFormatter.BASIC_ISO_DATE.format(LocalDate.now()) + ".log");
+			final AccessLogger logger = new AccessLogger("wait.log", 65536, LoggerRing.BLOCK);
+			logger.setWaitStrategy(strategy);
+			// 突发流量，每批之间写入线程进入等待
+			for (int b = 0; b < bursts; b++) {
+				for (int i = 0; i < size; i++) {
+					time = System.nanoTime();
+					logger.record(record);
+					latencies[b * size + i] = System.nanoTime() - time;
+				}
+				Thread.sleep(1);
+			}
+			logger.close();
+			Files.deleteIfExists(file);
+
+			Arrays.sort(latencies);
+			System.out.println(names[strategy] + " P50:" + latencies[latencies.length / 2] + "ns P99:" + latencies[latencies.length * 99 / 100] + "ns MAX:" + latencies[latencies.length - 1] + "ns");
+		}
+	}
+
+	@Test
+	void testGathering() throws Exception {
+		final Path file = Path.of("gathering-" + DateTimeFormatter.BASIC_ISO_DATE.format(LocalDate.now()) + ".log");
+		final AccessRecord record = record();
+
+		// 稀疏流量，每条日志单独写入
+		AccessLogger logger = new AccessLogger("gathering.log");
+		for (int i = 0; i < 100; i++) {
+			logger.record(record);
+			Thread.sleep(1);
+		}
+		logger.close();
+		final double sparse = (double) logger.getWrites() / logger.getRecords();
+		Files.deleteIfExists(file);
+
+		// 突发流量，多条日志合并为一次聚集写入
+		logger = new AccessLogger("gathering.log");
+		long time = System.nanoTime();
+		for (int i = 0; i < 200000; i++) {
+			logger.record(record);
+		}
+		logger.close();
+		time = System.nanoTime() - time;
+		final double burst = (double) logger.getWrites() / logger.getRecords();
+		assertEquals(200000, logger.getRecords());
+		Files.deleteIfExists(file);
+
+		System.out.println("WRITES/RECORD sparse:" + sparse + " burst:" + burst + " " + time / 200000 + "ns/record");
+		assertTrue(burst < sparse);
+		assertTrue(burst < 0.1);
+	}
+
+	@Test
+	void testDurability() throws Exception {
+		final Path file = Path.of("durability-" + DateTimeFormatter.BASIC_ISO_DATE.format(LocalDate.now()) + ".log");
+		final String[] names = { "NONE", "INTERVAL", "BYTES", "BATCH", "SYNC" };
+		final long[] values = { 0, 10, 64 * 1024, 0, 0 };
+		final long[] forces = new long[names.length];
+		final long[] writes = new long[names.length];
+		final AccessRecord record = record();
+		for (int policy = LoggerFlusher.NONE; policy <= LoggerFlusher.SYNC; policy++) {
+			Files.deleteIfExists(file);
+			final AccessLogger logger = new AccessLogger("durability.log");
+			logger.setDurability(policy, values[policy]);
+			assertEquals(policy, logger.getDurability());
+			long time = System.nanoTime();
+			for (int b = 0; b < 100; b++) {
+				for (int i = 0; i < 20; i++) {
+					logger.record(record);
+				}
+				Thread.sleep(1);
+			}
+			logger.close();
+			time = System.nanoTime() - time;
+			forces[policy] = logger.getForces();
+			writes[policy] = logger.getWrites();
+			assertEquals(2000, Files.readAllLines(file).size());
+			System.out.println(names[policy] + " FORCES:" + forces[policy] + " " + time / 1000000 + "ms");
+		}
+		Files.deleteIfExists(file);
+
+		// 关闭时刷新一次
+		assertEquals(1, forces[LoggerFlusher.NONE]);
+		// 刷新期间的多个批次合并
+		assertTrue(forces[LoggerFlusher.BATCH] <= writes[LoggerFlusher.BATCH] + 1);
+		assertTrue(forces[LoggerFlusher.BYTES] < forces[LoggerFlusher.SYNC]);
+		assertTrue(forces[LoggerFlusher.INTERVAL] < forces[LoggerFlusher.SYNC]);
+	}
 }
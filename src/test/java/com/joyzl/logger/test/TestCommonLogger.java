@@ -5,19 +5,26 @@
 package com.joyzl.logger.test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
 import java.util.Base64;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.Test;
 
+import com.joyzl.logger.LoggerFlusher;
 import com.joyzl.logger.common.CommonCodes;
 import com.joyzl.logger.common.CommonLogger;
 import com.joyzl.logger.common.CommonRecord;
@@ -157,4 +164,143 @@ class TestCommonLogger {
 		logger.close();
 	}
 
-}
\ No newline at end of file
+	CommonRecordDefault record(String callId) {
+		final CommonRecordDefault record = new CommonRecordDefault();
+		record.setType(CommonCodes.REQUEST);
+		record.setRetransmission(CommonCodes.ORIGINAL);
+		record.setDirection(CommonCodes.RECEIVED);
+		record.setTransport(CommonCodes.UDP);
+		record.setEncryption(CommonCodes.UNENCRYPTED);
+		record.setCSeqNumber(1);
+		record.setCSeqMethod("INVITE");
+		record.setStatus(0);
+		record.setRURI("sip:192.0.2.10");
+		record.setDestination("192.0.2.10:5060");
+		record.setSource("192.0.2.200:56485");
+		record.setTo("sip:192.0.2.10");
+		record.setToTag("");
+		record.setFrom("sip:1001@example.com:5060");
+		record.setFromTag("DL88360fa5fc");
+		record.setCallId(callId);
+		record.setServerTxn("S1781761-88");
+		record.setClientTxn("C67651-11");
+		return record;
+	}
+
+	@Test
+	void testMapped() throws Exception {
+		final Path file = Path.of("mapped-" + DateTimeFormatter.BASIC_ISO_DATE.format(LocalDate.now()) + ".log");
+		Files.deleteIfExists(file);
+
+		final CommonLogger logger = new CommonLogger("mapped.log");
+		logger.setMapped(65536);
+		final CommonRecordDefault record = record("mapped");
+		record.setTimestamp(System.currentTimeMillis());
+		logger.record(record);
+
+		// 写入中的文件末尾为映射扩展的零字节，检索时视为结束
+		assertEquals(65536, Files.size(file));
+		final List<CommonRecord> records = logger.search(null, null);
+		assertEquals(1, records.size());
+		assertEquals("mapped", records.get(0).getCallId());
+
+		// 关闭时截断至实际长度
+		logger.close();
+		assertTrue(Files.size(file) < 65536);
+		assertEquals(1, logger.search(null, null).size());
+		Files.delete(file);
+	}
+
+	@Test
+	void testGroupCommit() throws Exception {
+		final Path file = Path.of("group-" + DateTimeFormatter.BASIC_ISO_DATE.format(LocalDate.now()) + ".log");
+		Files.deleteIfExists(file);
+
+		final CommonLogger logger = new CommonLogger("group.log");
+		logger.setGroupCommit(true);
+		final int threads = 4, times = 200;
+		final Thread[] producers = new Thread[threads];
+		long time = System.nanoTime();
+		for (int t = 0; t < threads; t++) {
+			producers[t] = new Thread(() -> {
+				final CommonRecordDefault record = record(Thread.currentThread().getName());
+				try {
+					for (int i = 0; i < times; i++) {
+						record.setTimestamp(System.currentTimeMillis());
+						record.setCSeqNumber(i + 1);
+						// 返回时日志已持久化
+						logger.record(record);
+					}
+				} catch (IOException e) {
+					throw new RuntimeException(e);
+				}
+			});
+			producers[t].start();
+		}
+		for (Thread producer : producers) {
+			producer.join();
+		}
+		time = System.nanoTime() - time;
+
+		// 异步提交
+		final CommonRecordDefault record = record("submit");
+		record.setTimestamp(System.currentTimeMillis());
+		logger.submit(record).get();
+
+		// 每条记录以版本字符'A'开始
+		final long records = Files.readAllLines(file).stream().filter(line -> line.startsWith("A0")).count();
+		assertEquals(threads * times + 1, records);
+		System.out.println("GROUP COMMIT FORCES:" + logger.getForces() + " RECORDS:" + records + " " + time / 1000000 + "ms");
+		// 同时提交的日志合并刷新
+		assertTrue(logger.getForces() < records / 2);
+		logger.close();
+		Files.deleteIfExists(file);
+	}
+
+	@Test
+	void testGroupCommitClose() throws Exception {
+		final Path file = Path.of("grouped-" + DateTimeFormatter.BASIC_ISO_DATE.format(LocalDate.now()) + ".log");
+		Files.deleteIfExists(file);
+
+		final CommonLogger logger = new CommonLogger("grouped.log");
+		// 组提交不论持久化策略均刷新后完成
+		logger.setDurability(LoggerFlusher.NONE, 0);
+		logger.setGroupCommit(true);
+		final int threads = 4, times = 500;
+		final AtomicInteger accepted = new AtomicInteger();
+		final Thread[] producers = new Thread[threads];
+		for (int t = 0; t < threads; t++) {
+			producers[t] = new Thread(() -> {
+				final CommonRecordDefault record = record(Thread.currentThread().getName());
+				try {
+					for (int i = 0; i < times; i++) {
+						record.setTimestamp(System.currentTimeMillis());
+						record.setCSeqNumber(i + 1);
+						logger.record(record);
+						accepted.incrementAndGet();
+					}
+				} catch (IOException e) {
+					// 关闭后拒绝
+				}
+			});
+			producers[t].start();
+		}
+		// 记录期间关闭，关闭前接受的日志不应丢失，关闭后的日志不应阻塞
+		Thread.sleep(10);
+		logger.close();
+		for (Thread producer : producers) {
+			producer.join(10000);
+			assertFalse(producer.isAlive());
+		}
+		assertTrue(logger.getForces() > 0);
+
+		final long records = Files.readAllLines(file).stream().filter(line -> line.startsWith("A0")).count();
+		assertEquals(accepted.get(), records);
+
+		final CommonRecordDefault record = record("closed");
+		record.setTimestamp(System.currentTimeMillis());
+		assertThrows(IOException.class, () -> logger.record(record));
+		assertTrue(logger.submit(record).isCompletedExceptionally());
+		Files.deleteIfExists(file);
+	}
+}
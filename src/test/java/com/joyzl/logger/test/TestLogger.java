@@ -4,11 +4,22 @@
  */
 package com.joyzl.logger.test;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
 
 import org.junit.jupiter.api.Test;
 
 import com.joyzl.logger.Logger;
+import com.joyzl.logger.LoggerBuilder;
+import com.joyzl.logger.LoggerCategory;
 import com.joyzl.logger.LoggerCleaner;
 import com.joyzl.logger.LoggerService;
 
@@ -38,4 +49,172 @@ class TestLogger {
 		System.out.print(c);
 	}
 
+
+	@Test
+	void testAsynchronous() throws IOException {
+		final Path path = Path.of("log", "async-" + DateTimeFormatter.BASIC_ISO_DATE.format(LocalDate.now()) + ".log");
+		Files.deleteIfExists(path);
+
+		Logger.setConsole(false);
+		Logger.setFile("log", "async", ".log");
+		Logger.setAsynchronous(true);
+		for (int i = 0; i < 10000; i++) {
+			Logger.info("ASYNC", i);
+		}
+		Logger.setAsynchronous(false);
+		Logger.setFile(null, null, null);
+		Logger.setConsole(true);
+
+		assertEquals(10000, Files.readAllLines(path, StandardCharsets.UTF_8).size());
+	}
+
+	@Test
+	void testAsynchronousClose() throws Exception {
+		final Path path = Path.of("log", "closing-" + DateTimeFormatter.BASIC_ISO_DATE.format(LocalDate.now()) + ".log");
+		Files.deleteIfExists(path);
+
+		Logger.setConsole(false);
+		Logger.setFile("log", "closing", ".log");
+		Logger.setAsynchronous(true);
+		// 关闭异步输出时仍有线程输出日志
+		final Thread[] threads = new Thread[4];
+		for (int t = 0; t < threads.length; t++) {
+			threads[t] = new Thread(() -> {
+				for (int i = 0; i < 5000; i++) {
+					Logger.info("CLOSING", i);
+				}
+			});
+			threads[t].start();
+		}
+		Thread.sleep(5);
+		Logger.setAsynchronous(false);
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		Logger.setFile(null, null, null);
+		Logger.setConsole(true);
+
+		assertEquals(20000, Files.readAllLines(path, StandardCharsets.UTF_8).size());
+		Files.deleteIfExists(path);
+	}
+
+	@Test
+	void testAllocation() throws IOException {
+		final com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		final long thread = Thread.currentThread().getId();
+		final String text = "TEXT";
+		final Object value = Long.valueOf(1L);
+		final LoggerCategory category = Logger.get("com.shop.allocation");
+
+		final Path path = Path.of("log", "allocation-" + DateTimeFormatter.BASIC_ISO_DATE.format(LocalDate.now()) + ".log");
+		Files.deleteIfExists(path);
+
+		// 输出到文件，仅关闭控制台和网络
+		Logger.setConsole(false);
+		Logger.setFile("log", "allocation", ".log");
+		Logger.setUDP(null, 0);
+
+		long bytes, pool = 0, logger = 0;
+		for (int round = 0; round < 10; round++) {
+			bytes = bean.getThreadAllocatedBytes(thread);
+			for (int i = 0; i < 10000; i++) {
+				LoggerBuilder.instance().release();
+			}
+			pool = bean.getThreadAllocatedBytes(thread) - bytes;
+
+			bytes = bean.getThreadAllocatedBytes(thread);
+			for (int i = 0; i < 10000; i++) {
+				Logger.info(text, value);
+				Logger.info(text, value, text);
+				Logger.info(text, 100000L + i);
+				Logger.debug(text, i * 1000);
+				Logger.error(text, 1.5D * i);
+				Logger.info(text, i % 2 == 0);
+				category.error(100000L + i);
+				category.info(1.5D * i);
+				category.debug(text, i * 1000L);
+				category.info(text, value, text, value);
+				Logger.debug(i);
+				Logger.debug(1.5D);
+				Logger.error(text);
+				Logger.error(true);
+				Logger.infoWith(builder -> builder.append("TEXT").append(1L));
+			}
+			logger = bean.getThreadAllocatedBytes(thread) - bytes;
+		}
+		Logger.setFile(null, null, null);
+		Logger.setConsole(true);
+		assertTrue(Files.size(path) > 0);
+		Files.delete(path);
+
+		// 对象池和日志调用均没有任何分配
+		assertEquals(0, pool);
+		assertEquals(0, logger);
+	}
+
+	@Test
+	void testSupplier() {
+		final int level = Logger.getLevel();
+		final int[] calls = new int[1];
+		Logger.setConsole(false);
+
+		Logger.setLevel(1);
+		Logger.debugLazy(() -> calls[0]++);
+		Logger.infoWith(builder -> calls[0]++);
+		assertEquals(0, calls[0]);
+
+		Logger.setLevel(3);
+		Logger.debugLazy(() -> calls[0]++);
+		Logger.infoWith(builder -> builder.append(calls[0]++));
+		assertEquals(2, calls[0]);
+
+		// 单个 null 参数没有歧义，作为 null 消息数组输出空消息
+		Logger.info(null);
+		Logger.debug(null);
+		Logger.get("com.shop.null").info(null);
+
+		Logger.setLevel(level);
+		Logger.setConsole(true);
+	}
+
+	@Test
+	void testCategory() {
+		final int level = Logger.getLevel();
+		Logger.setLevel(1);
+
+		final LoggerCategory shop = Logger.get("com.shop");
+		final LoggerCategory payment = Logger.get("com.shop.payment");
+		final LoggerCategory card = Logger.get("com.shop.payment.card");
+		assertEquals(payment, Logger.get("com.shop.payment"));
+		assertEquals(1, shop.getEffectiveLevel());
+		assertEquals(1, card.getEffectiveLevel());
+
+		payment.setLevel(3);
+		assertEquals(1, shop.getEffectiveLevel());
+		assertEquals(3, payment.getEffectiveLevel());
+		assertEquals(3, card.getEffectiveLevel());
+
+		Logger.setLevel(2);
+		assertEquals(2, shop.getEffectiveLevel());
+		assertEquals(3, card.getEffectiveLevel());
+
+		card.setLevel(0);
+		payment.setLevel(LoggerCategory.INHERIT);
+		assertEquals(2, payment.getEffectiveLevel());
+		assertEquals(0, card.getEffectiveLevel());
+
+		Logger.setLevel(level);
+	}
+
+	@Test
+	void testConsoleAsynchronous() throws IOException {
+		Logger.setConsole(true);
+		Logger.setConsoleAsynchronous(true);
+		for (int i = 0; i < 100; i++) {
+			Logger.info("CONSOLE", i);
+		}
+		Logger.error("CONSOLE ERROR");
+		assertEquals(0, Logger.getConsoleDrops());
+		Logger.setConsoleAsynchronous(false);
+	}
 }
\ No newline at end of file
@@ -0,0 +1,84 @@
+/*
+ * Copyright © 2017-2025 重庆骄智科技有限公司.
+ * 本软件根据 Apache License 2.0 开源，详见 LICENSE 文件。
+ */
+package com.joyzl.logger.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.joyzl.logger.Logger;
+import com.joyzl.logger.LoggerBlackBox;
+
+class TestLoggerBlackBox {
+
+	@Test
+	void testRing() throws Exception {
+		final Path file = Path.of("log", "ring.box");
+		Files.createDirectories(file.getParent());
+		Files.deleteIfExists(file);
+
+		// 写满后覆盖最早的日志
+		LoggerBlackBox box = new LoggerBlackBox(file.toString(), 4096);
+		for (int i = 0; i < 1000; i++) {
+			final byte[] bytes = ("record" + i + "\n").getBytes();
+			box.record(bytes, 0, bytes.length);
+		}
+		List<String> records = box.records(10);
+		assertEquals(10, records.size());
+		for (int i = 0; i < 10; i++) {
+			assertEquals("record" + (990 + i) + "\n", records.get(i));
+		}
+		assertTrue(box.records(1000).size() < 1000);
+		box.close();
+
+		// 重启后读取最后的日志并接续序号
+		records = LoggerBlackBox.read(file, 3);
+		assertEquals("record999\n", records.get(2));
+		box = new LoggerBlackBox(file.toString(), 4096);
+		assertEquals(1000, box.getSequence());
+		box.record("next\n".getBytes(), 0, 5);
+		assertEquals("next\n", box.records(1).get(0));
+		box.close();
+
+		// 内容损坏的日志被忽略
+		final int size = records.size();
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			final ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+			channel.read(buffer, 0);
+			final int index = new String(buffer.array(), "ISO-8859-1").indexOf("next");
+			channel.write(ByteBuffer.wrap(new byte[] { 'N' }), index);
+		}
+		records = LoggerBlackBox.read(file, size);
+		assertEquals("record999\n", records.get(size - 1));
+		Files.delete(file);
+	}
+
+	@Test
+	void testLogger() throws Exception {
+		final Path file = Path.of("log", "logger.box");
+		Files.createDirectories(file.getParent());
+		Files.deleteIfExists(file);
+
+		Logger.setBlackBox(file.toString(), LoggerBlackBox.CAPACITY);
+		for (int i = 0; i < 100; i++) {
+			Logger.info("black box", i);
+		}
+		final List<String> records = Logger.getBlackBox().records(100);
+		Logger.setBlackBox(null, 0);
+
+		assertEquals(100, records.size());
+		assertTrue(records.get(99).endsWith("black box99\n"));
+		assertEquals(records, LoggerBlackBox.read(file, 100));
+		Files.delete(file);
+	}
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright © 2017-2025 重庆骄智科技有限公司.
+ * 本软件根据 Apache License 2.0 开源，详见 LICENSE 文件。
+ */
+package com.joyzl.logger.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.joyzl.logger.LoggerBuilder;
+
+class TestLoggerBuilder {
+
+	final static int THREADS = 64;
+	final static int TIMES = 100000;
+
+	/** 原全局队列对象池 */
+	final static ConcurrentLinkedQueue<LoggerBuilder> QUEUE = new ConcurrentLinkedQueue<>();
+
+	static LoggerBuilder poll() {
+		LoggerBuilder builder = QUEUE.poll();
+		if (builder == null) {
+			builder = new LoggerBuilder();
+		}
+		return builder;
+	}
+
+	static void offer(LoggerBuilder builder) {
+		builder.builder().setLength(0);
+		QUEUE.offer(builder);
+	}
+
+	long contention(Runnable task) throws InterruptedException {
+		final CountDownLatch begin = new CountDownLatch(1);
+		final CountDownLatch end = new CountDownLatch(THREADS);
+		for (int t = 0; t < THREADS; t++) {
+			new Thread(() -> {
+				try {
+					begin.await();
+					task.run();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				end.countDown();
+			}).start();
+		}
+		final long time = System.nanoTime();
+		begin.countDown();
+		end.await();
+		return System.nanoTime() - time;
+	}
+
+	@Test
+	void testContention() throws InterruptedException {
+		long queue = 0, local = 0;
+		for (int round = 0; round < 3; round++) {
+			queue = contention(() -> {
+				LoggerBuilder builder;
+				for (int i = 0; i < TIMES; i++) {
+					builder = poll();
+					builder.builder().append(i);
+					offer(builder);
+				}
+			});
+			local = contention(() -> {
+				LoggerBuilder builder;
+				for (int i = 0; i < TIMES; i++) {
+					builder = LoggerBuilder.instance();
+					builder.builder().append(i);
+					builder.release();
+				}
+			});
+		}
+		System.out.println("QUEUE POOL: " + queue / 1000000 + " ms " + (queue / THREADS / TIMES) + " ns/op");
+		System.out.println("LOCAL POOL: " + local / 1000000 + " ms " + (local / THREADS / TIMES) + " ns/op");
+	}
+
+	@Test
+	void testCrossThread() throws InterruptedException {
+		// 模拟 AccessLogger 调用线程获取对象，写入线程释放
+		final ArrayBlockingQueue<LoggerBuilder> records = new ArrayBlockingQueue<>(1024);
+		final AtomicInteger errors = new AtomicInteger();
+		final int producers = 8;
+
+		final Thread writer = new Thread(() -> {
+			LoggerBuilder builder;
+			try {
+				for (int i = 0; i < producers * TIMES; i++) {
+					builder = records.take();
+					if (builder.length() == 0) {
+						errors.incrementAndGet();
+					}
+					builder.release();
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		writer.start();
+
+		final Thread[] threads = new Thread[producers];
+		for (int t = 0; t < producers; t++) {
+			threads[t] = new Thread(() -> {
+				LoggerBuilder builder;
+				try {
+					for (int i = 0; i < TIMES; i++) {
+						builder = LoggerBuilder.instance();
+						if (builder.length() > 0 || builder.timestamp != 0) {
+							errors.incrementAndGet();
+						}
+						builder.timestamp = i + 1;
+						builder.builder().append(i);
+						records.put(builder);
+					}
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		writer.join();
+		assertEquals(0, errors.get());
+	}
+
+	@Test
+	void testTime() {
+		final ZoneOffset offset = ZoneId.systemDefault().getRules().getStandardOffset(Instant.EPOCH);
+		final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("HH:mm:ss.SSS");
+		final LoggerBuilder builder = LoggerBuilder.instance();
+		final ByteBuffer buffer = ByteBuffer.allocate(LoggerBuilder.TIME_LENGTH);
+		final long[] timestamps = { 0, 1, 999, 1000, 1001, 59999, 3600000, 86399999, 1749550882032L, 1749550882999L, 1749550883005L, System.currentTimeMillis() };
+		String text;
+		for (long timestamp : timestamps) {
+			text = formatter.format(LocalTime.ofInstant(Instant.ofEpochMilli(timestamp), offset));
+
+			builder.builder().setLength(0);
+			LoggerBuilder.encodeTime(builder.builder(), timestamp);
+			assertEquals(text, builder.toString());
+
+			LoggerBuilder.encodeTime(buffer.clear(), timestamp);
+			assertEquals(text, new String(buffer.array(), StandardCharsets.US_ASCII));
+		}
+		builder.release();
+	}
+}
\ No newline at end of file
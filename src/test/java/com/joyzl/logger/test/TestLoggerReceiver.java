@@ -4,12 +4,32 @@
  */
 package com.joyzl.logger.test;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
 import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.PortUnreachableException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.Test;
 
 import com.joyzl.logger.Logger;
+import com.joyzl.logger.LoggerAggregator;
+import com.joyzl.logger.LoggerBuilder;
 import com.joyzl.logger.LoggerReceiver;
+import com.joyzl.logger.LoggerReorder;
+import com.joyzl.logger.RotatableLogger;
 
 class TestLoggerReceiver {
 
@@ -29,4 +49,392 @@ class TestLoggerReceiver {
 		receiver.close();
 	}
 
-}
\ No newline at end of file
+	@Test
+	void testBatch() throws IOException, InterruptedException {
+		final AtomicInteger datagrams = new AtomicInteger();
+		final AtomicInteger lines = new AtomicInteger();
+		final LoggerReceiver receiver = new LoggerReceiver(1983) {
+			@Override
+			protected void receive(SocketAddress address, ByteBuffer buffer) {
+				datagrams.incrementAndGet();
+				super.receive(address, buffer);
+			}
+
+			@Override
+			protected void receive(SocketAddress address, CharSequence chars) {
+				for (int i = 0; i < chars.length(); i++) {
+					if (chars.charAt(i) == '\n') {
+						lines.incrementAndGet();
+					}
+				}
+			}
+		};
+
+		Logger.setConsole(false);
+		Logger.setFile(null, null, null);
+		Logger.setUDP("127.0.0.1", 1983, 1400, 10);
+		for (int i = 0; i < 1000; i++) {
+			Logger.info("BATCH", i);
+		}
+		Thread.sleep(500);
+		Logger.setUDP(null, 0, 0, 0);
+
+		System.out.println("LINES:" + lines.get() + " DATAGRAMS:" + datagrams.get());
+		assertEquals(1000, lines.get());
+		assertTrue(datagrams.get() < 100);
+
+		// 没有等待时仅在负载写满时发送，关闭时发送剩余
+		lines.set(0);
+		datagrams.set(0);
+		Logger.setUDP("127.0.0.1", 1983, 1400, 0);
+		for (int i = 0; i < 1000; i++) {
+			Logger.info("BATCH", i);
+		}
+		Logger.setUDP(null, 0, 0, 0);
+		Thread.sleep(500);
+		receiver.close();
+
+		System.out.println("LINES:" + lines.get() + " DATAGRAMS:" + datagrams.get());
+		assertEquals(1000, lines.get());
+		assertTrue(datagrams.get() < 100);
+	}
+
+	@Test
+	void testFrame() throws IOException, InterruptedException {
+		// 超长且包含多字节字符的日志，将跨越多个数据报
+		final StringBuilder text = new StringBuilder();
+		for (int i = 0; i < 1000; i++) {
+			text.append("重组").append(i).append('€');
+		}
+		final String message = text.toString();
+
+		final AtomicInteger records = new AtomicInteger();
+		final AtomicInteger errors = new AtomicInteger();
+		final LoggerReceiver receiver = new LoggerReceiver(1984) {
+			@Override
+			protected void receive(SocketAddress address, CharSequence chars) {
+				if (chars.toString().contains(message)) {
+					records.incrementAndGet();
+				} else if (chars.toString().contains("重组")) {
+					errors.incrementAndGet();
+				}
+			}
+		};
+
+		Logger.setConsole(false);
+		Logger.setFile(null, null, null);
+		Logger.setUDPFrame(true);
+		Logger.setUDP("127.0.0.1", 1984, 0, 0);
+		for (int i = 0; i < 10; i++) {
+			Logger.info(message);
+		}
+		Logger.setUDP("127.0.0.1", 1984, 1400, 10);
+		for (int i = 0; i < 10; i++) {
+			Logger.info(message);
+			Logger.info("BATCH", i);
+		}
+		Thread.sleep(500);
+		Logger.setUDPFrame(false);
+		Logger.setUDP(null, 0, 0, 0);
+		receiver.close();
+
+		System.out.println("RECORDS:" + records.get() + " GAPS:" + receiver.getGaps() + " INCOMPLETES:" + receiver.getIncompletes());
+		assertEquals(20, records.get());
+		assertEquals(0, errors.get());
+		assertEquals(0, receiver.getGaps());
+		assertEquals(0, receiver.getIncompletes());
+	}
+
+	/** 返回各接收线程接收的数据报数量 */
+	long[] load(int port, int workers) throws IOException, InterruptedException {
+		final LoggerReceiver receiver = new LoggerReceiver(port, workers) {
+			@Override
+			protected void receive(SocketAddress address, CharSequence chars) {
+				// 仅解码不输出
+			}
+		};
+		final byte[] line = "18:21:22.032\tmain\tINFOM\t接收线程负载测试 RECEIVER LOAD TEST 0123456789\n".getBytes(StandardCharsets.UTF_8);
+		final int senders = 8;
+		final long duration = 1000;
+		final Thread[] threads = new Thread[senders];
+		for (int t = 0; t < senders; t++) {
+			threads[t] = new Thread(() -> {
+				// 每个发送线程独立的源端口，以便分配到不同的接收线程
+				try (DatagramChannel channel = DatagramChannel.open()) {
+					channel.connect(new InetSocketAddress("127.0.0.1", port));
+					final ByteBuffer buffer = ByteBuffer.allocateDirect(1400);
+					while (buffer.remaining() >= line.length) {
+						buffer.put(line);
+					}
+					buffer.flip();
+					final long end = System.currentTimeMillis() + duration;
+					while (System.currentTimeMillis() < end) {
+						try {
+							channel.write(buffer.rewind());
+						} catch (PortUnreachableException e) {
+							continue;
+						}
+					}
+				} catch (IOException e) {
+					throw new RuntimeException(e);
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		Thread.sleep(100);
+		receiver.close();
+
+		final StringBuilder text = new StringBuilder();
+		text.append("WORKERS:").append(receiver.getWorkers());
+		text.append(" DATAGRAMS/S:").append(receiver.getReceived() * 1000 / duration);
+		text.append(" MB/S:").append(receiver.getBytes() * 1000 / duration / 1024 / 1024);
+		for (int w = 0; w < receiver.getWorkers(); w++) {
+			text.append(" [").append(w).append(']').append(receiver.getReceived(w));
+		}
+		System.out.println(text);
+		assertEquals(0, receiver.getDrops());
+		final long[] received = new long[receiver.getWorkers()];
+		for (int w = 0; w < received.length; w++) {
+			received[w] = receiver.getReceived(w);
+		}
+		return received;
+	}
+
+	@Test
+	void testWorkers() throws IOException, InterruptedException {
+		final long one = sum(load(1985, 1));
+		final long[] two = load(1986, 2);
+		final long[] four = load(1987, 4);
+		assertTrue(one > 0);
+
+		// 不同源端口的数据报按散列分配到多个接收线程
+		assertTrue(active(four) > 1);
+
+		// 单核环境不会体现扩展性，多核环境接收量随接收线程增加
+		if (Runtime.getRuntime().availableProcessors() > 1) {
+			assertTrue(Math.max(sum(two), sum(four)) > one);
+		}
+	}
+
+	static long sum(long[] values) {
+		long sum = 0;
+		for (long value : values) {
+			sum += value;
+		}
+		return sum;
+	}
+
+	/** 有接收量的接收线程数量 */
+	static int active(long[] values) {
+		int count = 0;
+		for (long value : values) {
+			if (value > 0) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	@Test
+	void testAggregator() throws IOException, InterruptedException {
+		final byte[] line = "18:21:22.032\tmain\tINFOM\t汇聚服务负载测试 AGGREGATOR LOAD TEST 0123456789\n".getBytes(StandardCharsets.UTF_8);
+		final int lines = 1400 / line.length;
+		final int senders = 16;
+		final long duration = 1000;
+
+		final Path directory = Path.of("log/aggregator");
+		if (Files.exists(directory)) {
+			try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+				for (Path file : files) {
+					Files.delete(file);
+				}
+			}
+		}
+
+		// 按发送方端口区分文件，仅保持4个发送方的文件打开，单个文件超过1MB时以序号续写
+		final LoggerAggregator aggregator = new LoggerAggregator("log/aggregator", 1988, 2, LoggerAggregator.BY_ADDRESS, 4);
+		aggregator.setRotation(RotatableLogger.DAILY, 1024 * 1024);
+		final Thread[] threads = new Thread[senders];
+		for (int t = 0; t < senders; t++) {
+			threads[t] = new Thread(() -> {
+				try (DatagramChannel channel = DatagramChannel.open()) {
+					channel.connect(new InetSocketAddress("127.0.0.1", 1988));
+					final ByteBuffer buffer = ByteBuffer.allocateDirect(1400);
+					for (int i = 0; i < lines; i++) {
+						buffer.put(line);
+					}
+					buffer.flip();
+					final long end = System.currentTimeMillis() + duration;
+					while (System.currentTimeMillis() < end) {
+						channel.write(buffer.rewind());
+						// 避免超出接收端的缓冲区
+						Thread.onSpinWait();
+					}
+				} catch (IOException e) {
+					throw new RuntimeException(e);
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		Thread.sleep(100);
+		aggregator.close();
+
+		long count = 0;
+		int segments = 0;
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+			for (Path file : files) {
+				count += Files.size(file) / line.length;
+				if (file.getFileName().toString().endsWith("-001.log")) {
+					segments++;
+				}
+				Files.delete(file);
+			}
+		}
+		System.out.println("SENDERS:" + aggregator.getSenders() + " LINES/S:" + count * 1000 / duration + " WRITES:" + aggregator.getWrites() + " DROPS:" + aggregator.getDrops());
+		assertTrue(aggregator.getSenders() > 4);
+		assertTrue(segments > 0);
+		assertEquals((aggregator.getReceived() - aggregator.getDrops()) * lines, count);
+		// 目标每秒20万行
+		assertTrue(count * 1000 / duration >= 200000);
+	}
+
+	@Test
+	void testAggregatorIdle() throws IOException, InterruptedException {
+		final Path directory = Path.of("log/idle");
+		if (Files.exists(directory)) {
+			try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+				for (Path file : files) {
+					Files.delete(file);
+				}
+			}
+		}
+
+		// 每个发送通道使用临时端口，空闲后移除
+		final LoggerAggregator aggregator = new LoggerAggregator("log/idle", 1990, 1, LoggerAggregator.BY_ADDRESS, 4);
+		aggregator.setIdle(100);
+		for (int t = 0; t < 8; t++) {
+			try (DatagramChannel channel = DatagramChannel.open()) {
+				channel.connect(new InetSocketAddress("127.0.0.1", 1990));
+				channel.write(ByteBuffer.wrap(("18:21:22.032\tmain\tINFOM\tIDLE " + t + "\n").getBytes()));
+			}
+		}
+		for (int i = 0; i < 100 && aggregator.getEvicts() < 8; i++) {
+			Thread.sleep(50);
+		}
+		assertEquals(8, aggregator.getEvicts());
+		assertEquals(0, aggregator.getSenders());
+		aggregator.close();
+
+		int count = 0;
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+			for (Path file : files) {
+				count += Files.readAllLines(file).size();
+			}
+		}
+		assertEquals(8, count);
+	}
+
+	@Test
+	void testAggregatorReorder() throws IOException, InterruptedException {
+		final Path directory = Path.of("log/ordered");
+		if (Files.exists(directory)) {
+			try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+				for (Path file : files) {
+					Files.delete(file);
+				}
+			}
+		}
+
+		// 同一主机的两个发送方写入同一文件，时间交错且后一个发送方较晚到达
+		final LoggerAggregator aggregator = new LoggerAggregator("log/ordered", 1991, 1);
+		aggregator.setReorder(300, 1024);
+		final long time = System.currentTimeMillis();
+		final StringBuilder a = new StringBuilder();
+		final StringBuilder b = new StringBuilder();
+		for (int i = 0; i < 50; i++) {
+			LoggerBuilder.encodeTime(a, time + i * 2);
+			a.append("\tmain\tINFOM\tA").append(i).append('\n');
+			LoggerBuilder.encodeTime(b, time + i * 2 + 1);
+			b.append("\tmain\tINFOM\tB").append(i).append('\n');
+		}
+		try (DatagramChannel channel1 = DatagramChannel.open(); DatagramChannel channel2 = DatagramChannel.open()) {
+			channel1.connect(new InetSocketAddress("127.0.0.1", 1991));
+			channel2.connect(new InetSocketAddress("127.0.0.1", 1991));
+			channel1.write(ByteBuffer.wrap(a.toString().getBytes(StandardCharsets.UTF_8)));
+			Thread.sleep(50);
+			channel2.write(ByteBuffer.wrap(b.toString().getBytes(StandardCharsets.UTF_8)));
+		}
+		Thread.sleep(100);
+		// 关闭时交付暂存的日志
+		aggregator.close();
+
+		final List<String> lines = new ArrayList<>();
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+			for (Path file : files) {
+				lines.addAll(Files.readAllLines(file, StandardCharsets.UTF_8));
+			}
+		}
+		assertEquals(100, lines.size());
+		for (int i = 0; i < 50; i++) {
+			assertTrue(lines.get(i * 2).endsWith("A" + i));
+			assertTrue(lines.get(i * 2 + 1).endsWith("B" + i));
+		}
+	}
+
+	@Test
+	void testReorder() throws IOException, InterruptedException {
+		final List<String> lines = Collections.synchronizedList(new ArrayList<>());
+		final LoggerReceiver receiver = new LoggerReceiver(1989) {
+			@Override
+			protected void receive(SocketAddress address, CharSequence chars) {
+				lines.add(chars.toString());
+			}
+		};
+		receiver.setReorder(300, 1024);
+
+		// 两个发送方时间交错，且后一个发送方的日志较晚到达
+		final long time = System.currentTimeMillis();
+		final StringBuilder a = new StringBuilder();
+		final StringBuilder b = new StringBuilder();
+		for (int i = 0; i < 50; i++) {
+			LoggerBuilder.encodeTime(a, time + i * 2);
+			a.append("\tmain\tINFOM\tA").append(i).append('\n');
+			LoggerBuilder.encodeTime(b, time + i * 2 + 1);
+			b.append("\tmain\tINFOM\tB").append(i).append('\n');
+			if (i == 10) {
+				// 异常堆栈等无时间戳的行
+				b.append("\tat com.joyzl.logger.Test\n");
+			}
+		}
+		// 访问日志格式的毫秒时间戳
+		final String access = (time + 1000) + " 18:21:22.032 80 localhost 127.0.0.1 GET / HTTP/1.1 0 - 1 200 0\n";
+		try (DatagramChannel channel1 = DatagramChannel.open(); DatagramChannel channel2 = DatagramChannel.open()) {
+			channel1.connect(new InetSocketAddress("127.0.0.1", 1989));
+			channel2.connect(new InetSocketAddress("127.0.0.1", 1989));
+			channel1.write(ByteBuffer.wrap(access.getBytes(StandardCharsets.UTF_8)));
+			channel1.write(ByteBuffer.wrap(a.toString().getBytes(StandardCharsets.UTF_8)));
+			Thread.sleep(50);
+			channel2.write(ByteBuffer.wrap(b.toString().getBytes(StandardCharsets.UTF_8)));
+		}
+		Thread.sleep(1500);
+		final LoggerReorder reorder = receiver.getReorder();
+		receiver.close();
+
+		System.out.println("LINES:" + lines.size() + " LATE:" + reorder.getLate() + " MAX DEPTH:" + reorder.getMaxDepth());
+		assertEquals(101, lines.size());
+		assertEquals(0, reorder.getLate());
+		assertEquals(101, reorder.getMaxDepth());
+		for (int i = 0; i < 50; i++) {
+			assertTrue(lines.get(i * 2).endsWith("A" + i + "\n"));
+			assertTrue(lines.get(i * 2 + 1).contains("B" + i + "\n"));
+		}
+		assertTrue(lines.get(21).endsWith("\tat com.joyzl.logger.Test\n"));
+		assertEquals(access, lines.get(100));
+	}
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright © 2017-2025 重庆骄智科技有限公司.
+ * 本软件根据 Apache License 2.0 开源，详见 LICENSE 文件。
+ */
+package com.joyzl.logger.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.Test;
+
+import com.joyzl.logger.Logger;
+import com.joyzl.logger.LoggerTCPReceiver;
+
+class TestLoggerTCP {
+
+	final Set<String> lines = ConcurrentHashMap.newKeySet();
+
+	LoggerTCPReceiver receiver(int port) throws IOException {
+		return new LoggerTCPReceiver(port) {
+			@Override
+			protected void receive(SocketAddress address, CharSequence chars) {
+				// 去除时间和线程名，重发的日志可能重复
+				final String line = chars.toString();
+				lines.add(line.substring(line.lastIndexOf('\t') + 1));
+			}
+		};
+	}
+
+	void await(int size) throws InterruptedException {
+		for (int i = 0; i < 200 && lines.size() < size; i++) {
+			Thread.sleep(50);
+		}
+	}
+
+	@Test
+	void test() throws IOException, InterruptedException {
+		Logger.setConsole(false);
+		Logger.setFile(null, null, null);
+
+		// 接收端未启动时日志暂存
+		Logger.setTCP("127.0.0.1", 1990);
+		for (int i = 0; i < 100; i++) {
+			Logger.info("TCP-A", i);
+		}
+		LoggerTCPReceiver receiver = receiver(1990);
+		await(100);
+		assertEquals(100, lines.size());
+
+		// 接收端断开后重启，期间的日志在重连后发送
+		receiver.close();
+		for (int i = 0; i < 100; i++) {
+			Logger.info("TCP-B", i);
+		}
+		Thread.sleep(200);
+		receiver = receiver(1990);
+		await(200);
+		for (int i = 0; i < 100; i++) {
+			assertTrue(lines.contains("TCP-A" + i + "\n"));
+			assertTrue(lines.contains("TCP-B" + i + "\n"));
+		}
+
+		// 超长且包含多字节字符的日志
+		final StringBuilder text = new StringBuilder();
+		for (int i = 0; i < 100000; i++) {
+			text.append('长');
+		}
+		Logger.info(text);
+		await(201);
+		assertTrue(lines.contains(text + "\n"));
+
+		Logger.setTCP(null, 0);
+		receiver.close();
+	}
+}
@@ -5,16 +5,26 @@
 package com.joyzl.logger.test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.ZoneOffset;
+import java.util.List;
 
 import org.junit.jupiter.api.Test;
 
+import com.joyzl.logger.LoggerBuilder;
+import com.joyzl.logger.LoggerFile;
 import com.joyzl.logger.RotatableLogger;
 import com.joyzl.logger.RotateFile;
 
@@ -66,10 +76,157 @@ class TestRotatableLogger {
 		assertEquals(files[0].path().getFileName().toString(), "a-20071203.log");
 		assertEquals(files[1].path().getFileName().toString(), "a-20071204.log");
 		assertEquals(files[2].path().getFileName().toString(), "a-20071205.log");
+		// 中间天为完整的一天
+		assertEquals(files[1].end() - files[1].begin(), 86399999);
+		assertEquals(files[0].end() + 1, files[1].begin());
+		assertEquals(files[1].end() + 1, files[2].begin());
 
 		logger.close();
 	}
 
+	@Test
+	void testPeriod() throws Exception {
+		final RotatableLogger logger = new RotatableLogger("", "a", "-", ".log") {
+			@Override
+			public void close() throws IOException {
+			}
+		};
+		final LocalDateTime dt1 = LocalDateTime.parse("2007-12-03T10:15:30");
+		final LocalDateTime dt2 = LocalDateTime.parse("2007-12-05T12:15:30");
+		final long t1 = dt1.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+
+		logger.setRotation(RotatableLogger.HOURLY, 0);
+		RotateFile file = logger.rotate(t1);
+		assertEquals("a-20071203-1000.log", file.path().getFileName().toString());
+		assertEquals(3599999, file.end() - file.begin());
+
+		logger.setRotation(15, 0);
+		file = logger.rotate(t1);
+		assertEquals("a-20071203-1015.log", file.path().getFileName().toString());
+		assertEquals(899999, file.end() - file.begin());
+
+		assertThrows(IllegalArgumentException.class, () -> logger.setRotation(7, 0));
+
+		// 仅与查询范围重叠的文件
+		logger.setRotation(RotatableLogger.HOURLY, 0);
+		final RotateFile[] files = logger.rotates(dt1, dt2);
+		assertEquals(14 + 24 + 13, files.length);
+		assertEquals("a-20071203-1000.log", files[0].path().getFileName().toString());
+		assertEquals(t1, files[0].begin());
+		assertEquals("a-20071205-1200.log", files[files.length - 1].path().getFileName().toString());
+		for (int index = 1; index < files.length; index++) {
+			assertEquals(files[index - 1].end() + 1, files[index].begin());
+		}
+
+		logger.setRotation(RotatableLogger.DAILY, 0);
+		assertEquals("a-20071203.log", logger.rotate(t1).path().getFileName().toString());
+		logger.close();
+	}
+
+	@Test
+	void testSize() throws Exception {
+		final Path dir = Path.of("log", "size");
+		if (Files.exists(dir)) {
+			try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+				for (Path path : stream) {
+					Files.delete(path);
+				}
+			}
+		}
+		final LoggerFile logger = new LoggerFile(dir.toString(), "s", "-", ".log");
+		logger.setRotation(RotatableLogger.DAILY, 1000);
+		final byte[] line = ("x".repeat(49) + "\n").getBytes();
+		final long now = System.currentTimeMillis();
+		for (int i = 0; i < 100; i++) {
+			logger.output(ByteBuffer.wrap(line), now);
+		}
+		logger.close();
+
+		final RotateFile[] files = logger.rotates((LocalDateTime) null, null);
+		assertEquals(5, files.length);
+		int lines = 0;
+		for (int index = 0; index < files.length; index++) {
+			assertEquals(index, files[index].sequence());
+			assertTrue(Files.size(files[index].path()) <= 1000);
+			lines += Files.readAllLines(files[index].path()).size();
+		}
+		assertEquals(100, lines);
+		assertTrue(files[3].path().getFileName().toString().endsWith("-003.log"));
+		for (RotateFile file : files) {
+			Files.delete(file.path());
+		}
+		Files.delete(dir);
+	}
+
+	@Test
+	void testSizeRecord() throws Exception {
+		final Path dir = Path.of("log", "record");
+		final LoggerFile logger = new LoggerFile(dir.toString(), "r", "-", ".log");
+		logger.setRotation(RotatableLogger.DAILY, 1000);
+		final ByteBuffer buffer = ByteBuffer.allocate(256);
+		final String[] records = new String[] { "x".repeat(99), "中".repeat(300), "y".repeat(99) };
+		final long now = System.currentTimeMillis();
+		for (String record : records) {
+			final LoggerBuilder builder = LoggerBuilder.instance();
+			builder.builder().append(record).append('\n');
+			builder.timestamp = now;
+			logger.output(builder, buffer);
+			builder.release();
+		}
+		logger.close();
+
+		// 超出缓存的日志按完整长度切换文件，不跨越分段
+		final RotateFile[] files = logger.rotates((LocalDateTime) null, null);
+		assertEquals(3, files.length);
+		for (int index = 0; index < files.length; index++) {
+			assertEquals(List.of(records[index]), Files.readAllLines(files[index].path()));
+			Files.delete(files[index].path());
+		}
+		Files.delete(dir);
+	}
+
+	@Test
+	void testMapped() throws Exception {
+		final Path dir = Path.of("log", "mapped");
+		if (Files.exists(dir)) {
+			try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+				for (Path path : stream) {
+					Files.delete(path);
+				}
+			}
+		}
+		final LoggerFile logger = new LoggerFile(dir.toString(), "m", "-", ".log");
+		logger.setMapped(4096);
+		final byte[] line = ("x".repeat(49) + "\n").getBytes();
+		final long now = System.currentTimeMillis();
+		for (int i = 0; i < 200; i++) {
+			logger.output(ByteBuffer.wrap(line), now);
+		}
+		logger.close();
+
+		// 关闭时截断至实际长度
+		final Path path = logger.rotate(now).path();
+		assertEquals(10000, Files.size(path));
+		assertEquals(200, Files.readAllLines(path).size());
+
+		// 异常终止残留的零字节在再次打开时跳过
+		Files.write(path, new byte[3000], StandardOpenOption.APPEND);
+		final LoggerFile reopen = new LoggerFile(dir.toString(), "m", "-", ".log");
+		reopen.setMapped(4096);
+		reopen.output(ByteBuffer.wrap(line), now);
+		reopen.close();
+		assertEquals(10050, Files.size(path));
+
+		// 停用内存映射后普通追加
+		final LoggerFile plain = new LoggerFile(dir.toString(), "m", "-", ".log");
+		plain.output(ByteBuffer.wrap(line), now);
+		plain.close();
+		assertEquals(10100, Files.size(path));
+		assertEquals(202, Files.readAllLines(path).size());
+		Files.delete(path);
+		Files.delete(dir);
+	}
+
 	@Test
 	void testDate() throws Exception {
 		final RotatableLogger logger = new RotatableLogger("", "a", "-", ".log") {
@@ -105,4 +262,73 @@ class TestRotatableLogger {
 
 		logger.close();
 	}
+
+	@Test
+	void testHandles() throws Exception {
+		final Path dir = Path.of("log", "handles");
+		if (Files.exists(dir)) {
+			try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+				for (Path path : stream) {
+					Files.delete(path);
+				}
+			}
+		}
+		final LoggerFile logger = new LoggerFile(dir.toString(), "h", "-", ".log");
+		final long midnight = LocalDate.now().atStartOfDay(ZoneOffset.systemDefault()).toInstant().toEpochMilli();
+
+		// 零点前后交错到达的日志
+		for (int i = 0; i < 100; i++) {
+			logger.output(ByteBuffer.wrap(("before" + i + "\n").getBytes()), midnight - 1000 + i);
+			logger.output(ByteBuffer.wrap(("after" + i + "\n").getBytes()), midnight + i);
+		}
+		assertEquals(2, logger.getOpenFiles());
+
+		// 空闲的文件被关闭
+		logger.output(ByteBuffer.wrap("later\n".getBytes()), midnight + 120000);
+		assertEquals(1, logger.getOpenFiles());
+		logger.close();
+		assertEquals(0, logger.getOpenFiles());
+
+		final RotateFile before = logger.rotate(midnight - 1);
+		final RotateFile after = logger.rotate(midnight);
+		assertEquals(100, Files.readAllLines(before.path()).size());
+		assertEquals(101, Files.readAllLines(after.path()).size());
+		assertTrue(Files.readAllLines(before.path()).stream().allMatch(line -> line.startsWith("before")));
+		Files.delete(before.path());
+		Files.delete(after.path());
+		Files.delete(dir);
+	}
+
+	@Test
+	void testPrepare() throws Exception {
+		final Path dir = Path.of("log", "prepare");
+		final LoggerFile logger = new LoggerFile(dir.toString(), "p", "-", ".log");
+		final long midnight = LocalDate.now().atStartOfDay(ZoneOffset.systemDefault()).toInstant().toEpochMilli() + 86400000L;
+		final RotateFile next = logger.rotate(midnight);
+		Files.deleteIfExists(next.path());
+
+		logger.output(ByteBuffer.wrap("before\n".getBytes()), midnight - 1000);
+		assertNull(logger.getPrepared());
+
+		// 轮换线程在零点之前预先打开下一文件
+		logger.prepare(midnight);
+		assertEquals(next.path(), logger.getPrepared().path());
+		assertTrue(Files.exists(next.path()));
+
+		logger.output(ByteBuffer.wrap("after\n".getBytes()), midnight);
+		assertNull(logger.getPrepared());
+		assertEquals(2, logger.getOpenFiles());
+		logger.close();
+
+		assertEquals(1, Files.readAllLines(next.path()).size());
+		Files.deleteIfExists(next.path());
+
+		// 关闭后预先打开的文件立即关闭
+		final RotateFile late = logger.rotate(midnight + 86400000L);
+		logger.prepare(late.begin());
+		assertNull(logger.getPrepared());
+		Files.deleteIfExists(late.path());
+		Files.delete(logger.rotate(midnight - 1000).path());
+		Files.delete(dir);
+	}
 }